@@ -3,6 +3,7 @@ package com.cspinventory.app;
 import com.cspinventory.controller.MainController;
 import com.cspinventory.dao.DatabaseManager;
 import com.cspinventory.dao.SQLiteMachineDao;
+import com.cspinventory.service.AsyncMachineService;
 import com.cspinventory.service.ExcelExportService;
 import com.cspinventory.service.MachineService;
 import com.cspinventory.util.AppPaths;
@@ -18,6 +19,7 @@ import javafx.stage.Stage;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
@@ -32,6 +34,10 @@ public class MainApp extends Application {
     private static final Logger LOGGER = Logger.getLogger(MainApp.class.getName());
     private static final DateTimeFormatter BACKUP_FMT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     private static final int MAX_BACKUP_FILES = 20;
+    private static final Duration CHANGE_POLL_INTERVAL = Duration.ofSeconds(2);
+
+    private DatabaseManager databaseManager;
+    private AsyncMachineService asyncMachineService;
 
     @Override
     public void start(Stage primaryStage) {
@@ -44,18 +50,20 @@ public class MainApp extends Application {
             ModelImageResolver.configureExternalModelsDirectory(appPaths.getModelsDir());
             LOGGER.info("Application home: " + appPaths.getAppHome());
 
-            DatabaseManager databaseManager = new DatabaseManager(appPaths.getDatabasePath().toString());
+            databaseManager = new DatabaseManager(appPaths.getDatabasePath().toString());
             databaseManager.initialize();
             backupDatabase(databaseManager.getDbPath(), appPaths.getBackupsDir());
 
             MachineService machineService = new MachineService(new SQLiteMachineDao(databaseManager));
+            machineService.startChangeMonitor(CHANGE_POLL_INTERVAL);
+            asyncMachineService = new AsyncMachineService(machineService, Platform::runLater);
             ExcelExportService excelExportService = new ExcelExportService();
 
             FXMLLoader loader = new FXMLLoader(MainApp.class.getResource("/com/cspinventory/main-view.fxml"));
             Parent root = loader.load();
 
             MainController controller = loader.getController();
-            controller.initializeServices(machineService, excelExportService, databaseManager.getDbPath());
+            controller.initializeServices(asyncMachineService, excelExportService, databaseManager);
 
             Scene scene = new Scene(root, 1400, 760);
             primaryStage.setTitle("CSP Inventory");
@@ -83,6 +91,17 @@ public class MainApp extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        if (asyncMachineService != null) {
+            asyncMachineService.close();
+            asyncMachineService.getMachineService().close();
+        }
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
+    }
+
     private void backupDatabase(Path dbPath, Path backupDirectory) {
         try {
             if (!Files.exists(dbPath) || Files.size(dbPath) == 0) {
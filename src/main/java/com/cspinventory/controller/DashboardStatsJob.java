@@ -0,0 +1,79 @@
+package com.cspinventory.controller;
+
+import com.cspinventory.search.SearchResult;
+import com.cspinventory.service.AsyncMachineService;
+import com.cspinventory.service.InventorySummary;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Counts the dashboard figures of the shown search on a worker thread, so typing in the search field never waits
+// for them. Requests made while the matches change (a new query, a new snapshot) are coalesced into one run
+// started after the current FX event; a new run cancels the one in flight, and only the result of the latest run
+// is published, on the FX thread. request() must be called on the JavaFX Application Thread.
+final class DashboardStatsJob {
+
+    private static final Logger LOGGER = Logger.getLogger(DashboardStatsJob.class.getName());
+
+    // The matches of the shown search, or null when the view is not filtered and the whole-inventory figures apply.
+    private final Supplier<SearchResult> filter;
+    // Runs on the worker; throws CancellationException once the flag reports true.
+    private final BiFunction<SearchResult, BooleanSupplier, InventorySummary> summarize;
+    private final Executor worker;
+    private final Executor fxThread;
+    private final Consumer<InventorySummary> publish;
+
+    private boolean scheduled;
+    private int generation;
+    private AtomicBoolean cancelled = new AtomicBoolean();
+
+    DashboardStatsJob(Supplier<SearchResult> filter,
+                      BiFunction<SearchResult, BooleanSupplier, InventorySummary> summarize,
+                      Executor worker,
+                      Executor fxThread,
+                      Consumer<InventorySummary> publish) {
+        this.filter = filter;
+        this.summarize = summarize;
+        this.worker = worker;
+        this.fxThread = fxThread;
+        this.publish = publish;
+    }
+
+    void request() {
+        if (!scheduled) {
+            scheduled = true;
+            fxThread.execute(this::start);
+        }
+    }
+
+    private void start() {
+        scheduled = false;
+        cancelled.set(true);
+        AtomicBoolean runCancelled = new AtomicBoolean();
+        cancelled = runCancelled;
+        int run = ++generation;
+        SearchResult shown = filter.get();
+        if (shown == null) {
+            publish.accept(null);
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> summarize.apply(shown, runCancelled::get), worker)
+                .whenCompleteAsync((stats, error) -> {
+                    if (error == null) {
+                        if (run == generation) {
+                            publish.accept(stats);
+                        }
+                    } else if (!(AsyncMachineService.unwrap(error) instanceof CancellationException)) {
+                        LOGGER.log(Level.WARNING, "Unable to compute dashboard statistics", error);
+                    }
+                }, fxThread);
+    }
+}
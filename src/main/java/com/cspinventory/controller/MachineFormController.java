@@ -1,11 +1,14 @@
 package com.cspinventory.controller;
 
 import com.cspinventory.model.Machine;
-import com.cspinventory.service.MachineService;
+import com.cspinventory.service.AsyncMachineService;
 import com.cspinventory.util.AlertUtil;
 import com.cspinventory.util.EmplacementCatalog;
 import com.cspinventory.util.ModelImageResolver;
+import com.cspinventory.util.NetworkAddresses;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -22,22 +25,17 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletionStage;
 
 public class MachineFormController {
 
     private static final DateTimeFormatter AUDIT_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-    private static final Pattern IPV4_PATTERN = Pattern.compile(
-            "^(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\."
-                    + "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\."
-                    + "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\."
-                    + "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)$"
-    );
-    private static final Pattern MAC_PATTERN = Pattern.compile("^([0-9A-Fa-f]{2}([-:])){5}[0-9A-Fa-f]{2}$");
 
     @FXML
     private TextField nomReseauField;
     @FXML
+    private Label nomReseauWarningLabel;
+    @FXML
     private TextField serieNmbField;
     @FXML
     private TextField modelField;
@@ -95,18 +93,24 @@ public class MachineFormController {
     private Button deleteButton;
 
     private Machine initialMachine;
-    private MachineService machineService;
+    private AsyncMachineService machineService;
     private FormCallbacks formCallbacks;
+    // Names are checked as they are typed; only the answer to the latest check is shown, and the save validates
+    // the name again.
+    private long nameCheckSequence;
+    private final BooleanProperty duplicateName = new SimpleBooleanProperty();
+    // True while the save or the delete is running; the form actions are disabled meanwhile.
+    private final BooleanProperty working = new SimpleBooleanProperty();
 
     public interface FormCallbacks {
-        void onSave(Machine machine);
+        CompletionStage<?> onSave(Machine machine);
 
         void onCancel();
 
-        void onDelete(Machine machine);
+        CompletionStage<?> onDelete(Machine machine);
     }
 
-    public void initialize(Machine machine, MachineService machineService, FormCallbacks formCallbacks) {
+    public void initialize(Machine machine, AsyncMachineService machineService, FormCallbacks formCallbacks) {
         this.initialMachine = machine;
         this.machineService = machineService;
         this.formCallbacks = formCallbacks;
@@ -138,6 +142,7 @@ public class MachineFormController {
         boolean editMode = machine != null && machine.getId() != null;
         deleteButton.setVisible(editMode);
         deleteButton.setManaged(editMode);
+        deleteButton.disableProperty().bind(working);
         actionButton.setText(editMode ? "Sauvegarder" : "Creer");
         subtitleLabel.setText(editMode ? "Modification" : "Creation");
         auditStateLabel.setText(editMode ? "Derniere sauvegarde" : "Non sauvegarde");
@@ -145,7 +150,12 @@ public class MachineFormController {
 
         configureEmplacementMode(machine);
 
-        nomReseauField.textProperty().addListener((obs, oldValue, newValue) -> refreshHeader());
+        nomReseauField.textProperty().addListener((obs, oldValue, newValue) -> {
+            refreshHeader();
+            refreshNomReseauWarning();
+        });
+        nomReseauWarningLabel.visibleProperty().bind(duplicateName);
+        nomReseauWarningLabel.managedProperty().bind(duplicateName);
         modelField.textProperty().addListener((obs, oldValue, newValue) -> refreshModelPreview());
         statutField.valueProperty().addListener((obs, oldValue, newValue) -> refreshStatusDot());
         siteField.valueProperty().addListener((obs, oldValue, newValue) -> onSiteChanged());
@@ -155,9 +165,12 @@ public class MachineFormController {
         }
 
         actionButton.disableProperty().bind(Bindings.createBooleanBinding(
-                () -> clean(nomReseauField.getText()) == null,
-                nomReseauField.textProperty()
+                () -> clean(nomReseauField.getText()) == null || duplicateName.get() || working.get(),
+                nomReseauField.textProperty(),
+                duplicateName,
+                working
         ));
+        refreshNomReseauWarning();
 
         refreshHeader();
         refreshModelPreview();
@@ -199,23 +212,25 @@ public class MachineFormController {
             }
             validateNetworkFields(machine);
 
-            Long excludeId = machine.getId();
-            if (machineService != null && machineService.isNomReseauTaken(machine.getNomReseau(), excludeId)) {
-                throw new IllegalArgumentException("Le NomReseau existe deja.");
-            }
-
             if (machine.getStatut() == null || machine.getStatut().isBlank()) {
                 machine.setStatut("Ok");
             }
 
-            if (formCallbacks != null) {
-                formCallbacks.onSave(machine);
-            }
+            submitSave(machine);
         } catch (Exception e) {
             AlertUtil.error("Validation", e.getMessage());
         }
     }
 
+    private void submitSave(Machine machine) {
+        if (formCallbacks == null) {
+            working.set(false);
+            return;
+        }
+        working.set(true);
+        formCallbacks.onSave(machine).whenComplete((result, error) -> working.set(false));
+    }
+
     @FXML
     private void onCancel() {
         if (formCallbacks != null) {
@@ -233,7 +248,8 @@ public class MachineFormController {
         boolean confirmed = AlertUtil.confirm("Confirmation", "Supprimer cette machine ?");
         if (confirmed) {
             if (formCallbacks != null) {
-                formCallbacks.onDelete(initialMachine);
+                working.set(true);
+                formCallbacks.onDelete(initialMachine).whenComplete((result, error) -> working.set(false));
             }
         }
     }
@@ -261,6 +277,21 @@ public class MachineFormController {
         }
     }
 
+    private void refreshNomReseauWarning() {
+        String nom = clean(nomReseauField.getText());
+        Long id = initialMachine != null ? initialMachine.getId() : null;
+        long check = ++nameCheckSequence;
+        if (nom == null || machineService == null) {
+            duplicateName.set(false);
+            return;
+        }
+        machineService.isNomReseauTaken(nom, id).thenAccept(taken -> {
+            if (check == nameCheckSequence) {
+                duplicateName.set(taken);
+            }
+        });
+    }
+
     private void refreshModelPreview() {
         String model = clean(modelField.getText());
         String value = model == null ? "-" : model;
@@ -375,25 +406,17 @@ public class MachineFormController {
     }
 
     private void validateNetworkFields(Machine machine) {
-        if (!isValidIPv4(machine.getIpv4RJ45())) {
+        if (!NetworkAddresses.isValidIPv4(machine.getIpv4RJ45())) {
             throw new IllegalArgumentException("IPv4 RJ45 invalide (format attendu: 192.168.1.10)");
         }
-        if (!isValidIPv4(machine.getIpv4Wifi())) {
+        if (!NetworkAddresses.isValidIPv4(machine.getIpv4Wifi())) {
             throw new IllegalArgumentException("IPv4 Wifi invalide (format attendu: 192.168.1.10)");
         }
-        if (!isValidMacAddress(machine.getMacEthernet())) {
+        if (!NetworkAddresses.isValidMacAddress(machine.getMacEthernet())) {
             throw new IllegalArgumentException("MAC Ethernet invalide (format attendu: AA:BB:CC:DD:EE:FF)");
         }
-        if (!isValidMacAddress(machine.getMacWifi())) {
+        if (!NetworkAddresses.isValidMacAddress(machine.getMacWifi())) {
             throw new IllegalArgumentException("MAC Wifi invalide (format attendu: AA:BB:CC:DD:EE:FF)");
         }
     }
-
-    private boolean isValidIPv4(String value) {
-        return value == null || IPV4_PATTERN.matcher(value).matches();
-    }
-
-    private boolean isValidMacAddress(String value) {
-        return value == null || MAC_PATTERN.matcher(value).matches();
-    }
 }
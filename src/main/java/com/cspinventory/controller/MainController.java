@@ -1,27 +1,44 @@
 package com.cspinventory.controller;
 
+import com.cspinventory.dao.DatabaseManager;
 import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.search.SearchPage;
+import com.cspinventory.search.SearchQuery;
+import com.cspinventory.search.SearchResult;
+import com.cspinventory.service.AsyncMachineService;
 import com.cspinventory.service.ExcelExportService;
+import com.cspinventory.service.InventorySummary;
 import com.cspinventory.service.MachineService;
 import com.cspinventory.util.AlertUtil;
 import com.cspinventory.util.ModelImageResolver;
+import javafx.application.Platform;
+import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.image.Image;
@@ -35,6 +52,7 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -47,15 +65,21 @@ import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MainController {
+    private static final Logger LOGGER = Logger.getLogger(MainController.class.getName());
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
     private static final DateTimeFormatter DATETIME_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
     private static final DateTimeFormatter EXPORT_DATE_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
@@ -66,32 +90,41 @@ public class MainController {
     private static final String STATUS_DOT_STYLE_MAINTENANCE = "-fx-text-fill: #F59E0B; -fx-font-size: 13px;";
     private static final String STATUS_DOT_STYLE_MANQUE = "-fx-text-fill: #DC2626; -fx-font-size: 13px;";
     private static final Set<String> REQUIRED_DB_COLUMNS = Set.of("nomreseau", "site", "lieu");
+    private static final int PAGE_SIZE = 500;
+    private static final long EAGER_LOAD_THRESHOLD = 20_000;
+    private static final double SCROLL_PREFETCH_RATIO = 0.85;
+    private static final int SEARCH_RESULT_LIMIT = 5_000;
+    private static final int DASHBOARD_TOP_ENTRIES = 5;
 
     @FXML
     private TextField searchField;
     @FXML
+    private Hyperlink suggestionLink;
+    @FXML
     private Label machinesCountLabel;
     @FXML
+    private ToggleButton filteredStatsToggle;
+    @FXML
     private Label databaseStatusLabel;
 
     @FXML
-    private TableView<Machine> machineTable;
+    private TableView<MachineSnapshot> machineTable;
     @FXML
-    private TableColumn<Machine, String> nomReseauColumn;
+    private TableColumn<MachineSnapshot, String> nomReseauColumn;
     @FXML
-    private TableColumn<Machine, String> serieColumn;
+    private TableColumn<MachineSnapshot, String> serieColumn;
     @FXML
-    private TableColumn<Machine, String> modelColumn;
+    private TableColumn<MachineSnapshot, String> modelColumn;
     @FXML
-    private TableColumn<Machine, String> utilisateurColumn;
+    private TableColumn<MachineSnapshot, String> utilisateurColumn;
     @FXML
-    private TableColumn<Machine, String> emplacementColumn;
+    private TableColumn<MachineSnapshot, String> emplacementColumn;
     @FXML
-    private TableColumn<Machine, String> ipv4Column;
+    private TableColumn<MachineSnapshot, String> ipv4Column;
     @FXML
-    private TableColumn<Machine, String> ipv4WifiColumn;
+    private TableColumn<MachineSnapshot, String> ipv4WifiColumn;
     @FXML
-    private TableColumn<Machine, Boolean> garantieColumn;
+    private TableColumn<MachineSnapshot, Boolean> garantieColumn;
 
     @FXML
     private Label selectedNomReseauLabel;
@@ -131,6 +164,14 @@ public class MainController {
     @FXML
     private Label lastUpdateLabel;
 
+    @FXML
+    private Button refreshButton;
+    @FXML
+    private Button newMachineButton;
+    @FXML
+    private Button exportButton;
+    @FXML
+    private ProgressIndicator busyIndicator;
     @FXML
     private Button restoreBackupButton;
     @FXML
@@ -143,54 +184,74 @@ public class MainController {
     @FXML
     private VBox formHost;
 
-    private final ObservableList<Machine> machines = FXCollections.observableArrayList();
-    private FilteredList<Machine> filteredMachines;
+    private final ObservableList<MachineSnapshot> machines = FXCollections.observableArrayList();
+    // Figures of the whole inventory, counted by the service over every row, not only the loaded pages.
+    private InventorySummary inventorySummary = InventorySummary.EMPTY;
+    private int summarySequence;
+    // Figures of the filtered view from the last background run; null while the view is not filtered.
+    private InventorySummary filteredStats;
+    private DashboardStatsJob filteredStatsJob;
+    private FilteredList<MachineSnapshot> filteredMachines;
     private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
-
-    private MachineService machineService;
+    private PagedMachineLoader pageLoader;
+    private final ObservableList<MachineSnapshot> searchResults = FXCollections.observableArrayList();
+    private int searchSequence;
+    // Matches of the last in-memory search, null while the view is not filtered; the service refines it while
+    // the query keeps narrowing.
+    private SearchResult lastSearch;
+    private AtomicBoolean searchCancelled = new AtomicBoolean();
+    private boolean resultListActive;
+
+    // Database work in flight; the header actions stay disabled until it completes.
+    private final IntegerProperty pendingWork = new SimpleIntegerProperty();
+    private final BooleanBinding busy = pendingWork.greaterThan(0);
+
+    private AsyncMachineService asyncMachineService;
     private ExcelExportService excelExportService;
+    private DatabaseManager databaseManager;
     private Path databasePath;
 
-    public void initializeServices(MachineService machineService,
+    public void initializeServices(AsyncMachineService asyncMachineService,
                                    ExcelExportService excelExportService,
-                                   Path databasePath) {
-        this.machineService = machineService;
+                                   DatabaseManager databaseManager) {
+        this.asyncMachineService = asyncMachineService;
         this.excelExportService = excelExportService;
-        this.databasePath = databasePath;
+        this.databaseManager = databaseManager;
+        this.databasePath = databaseManager.getDbPath();
+        this.pageLoader = new PagedMachineLoader(asyncMachineService, machines, PAGE_SIZE, this::onPageLoaded);
         updateDatabaseStatus("Backup session: aucun chargement");
 
         configureTable();
         configureFiltering();
         configureSelection();
-        try {
-            loadData();
-        } catch (Exception e) {
-            AlertUtil.error("Chargement", "Impossible de charger les machines: " + e.getMessage());
-        }
+        configureBusyState();
+        configureFilteredStats();
+        loadData();
         clearQuickSheet();
     }
 
     private void configureTable() {
         machineTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
 
-        nomReseauColumn.setCellValueFactory(data -> wrapped(data.getValue().getNomReseau()));
+        nomReseauColumn.setCellValueFactory(data -> wrapped(data.getValue().nomReseau()));
         nomReseauColumn.setCellFactory(column -> new StatusNetworkCell());
 
-        serieColumn.setCellValueFactory(data -> wrapped(data.getValue().getSerieNmb()));
-        modelColumn.setCellValueFactory(data -> wrapped(data.getValue().getModel()));
-        utilisateurColumn.setCellValueFactory(data -> wrapped(data.getValue().getUtilisateur()));
-        emplacementColumn.setCellValueFactory(data -> wrapped(data.getValue().getEmplacement()));
-        ipv4Column.setCellValueFactory(data -> wrapped(data.getValue().getIpv4RJ45()));
-        ipv4WifiColumn.setCellValueFactory(data -> wrapped(data.getValue().getIpv4Wifi()));
+        serieColumn.setCellValueFactory(data -> wrapped(data.getValue().serieNmb()));
+        modelColumn.setCellValueFactory(data -> wrapped(data.getValue().model()));
+        utilisateurColumn.setCellValueFactory(data -> wrapped(data.getValue().utilisateur()));
+        emplacementColumn.setCellValueFactory(data -> wrapped(data.getValue().emplacement()));
+        ipv4Column.setCellValueFactory(data -> wrapped(data.getValue().ipv4RJ45()));
+        ipv4WifiColumn.setCellValueFactory(data -> wrapped(data.getValue().ipv4Wifi()));
 
-        garantieColumn.setCellValueFactory(data -> new SimpleBooleanProperty(data.getValue().isGarantie()));
+        garantieColumn.setCellValueFactory(data -> new SimpleBooleanProperty(data.getValue().garantie()));
         garantieColumn.setCellFactory(CheckBoxTableCell.forTableColumn(garantieColumn));
 
         filteredMachines = new FilteredList<>(machines, machine -> true);
         machineTable.setItems(filteredMachines);
+        machineTable.skinProperty().addListener((obs, oldSkin, newSkin) -> attachScrollPaging());
 
         machineTable.setRowFactory(table -> {
-            TableRow<Machine> row = new TableRow<>();
+            TableRow<MachineSnapshot> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2 && !row.isEmpty()) {
                     onOpenRequested(row.getItem());
@@ -207,7 +268,7 @@ public class MainController {
     }
 
     private void configureSelection() {
-        deleteButton.disableProperty().bind(machineTable.getSelectionModel().selectedItemProperty().isNull());
+        deleteButton.disableProperty().bind(machineTable.getSelectionModel().selectedItemProperty().isNull().or(busy));
         openSheetButton.disableProperty().bind(machineTable.getSelectionModel().selectedItemProperty().isNull());
 
         machineTable.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
@@ -219,117 +280,283 @@ public class MainController {
         });
     }
 
-    private void loadData() {
-        List<Machine> all = machineService.findAll();
-        machines.setAll(all);
-        updateCount();
-        updateWidgets(all);
+    // The figures of the filtered view are kept current in the background whichever scope is shown, so switching
+    // between the whole inventory and the view only redraws the labels. The service counts every match of the
+    // search, including the rows the table has not loaded or cuts from a result list.
+    private void configureFilteredStats() {
+        MachineService service = asyncMachineService.getMachineService();
+        filteredStatsJob = new DashboardStatsJob(() -> lastSearch,
+                (result, cancelled) -> service.summarize(result, DASHBOARD_TOP_ENTRIES, cancelled),
+                ForkJoinPool.commonPool(), Platform::runLater, stats -> {
+                    filteredStats = stats;
+                    updateWidgets();
+                });
+        filteredStatsToggle.selectedProperty().addListener((obs, wasSelected, selected) -> updateWidgets());
     }
 
-    private void applySearchFilter(String searchText) {
-        filteredMachines.setPredicate(machine -> machineService.matches(machine, searchText));
-        updateCount();
+    private void configureBusyState() {
+        busyIndicator.visibleProperty().bind(busy);
+        busyIndicator.managedProperty().bind(busy);
+        refreshButton.disableProperty().bind(busy);
+        newMachineButton.disableProperty().bind(busy);
+        exportButton.disableProperty().bind(busy);
+        restoreBackupButton.disableProperty().bind(busy);
     }
 
-    private void updateCount() {
-        machinesCountLabel.setText(filteredMachines.size() + " machines affichees / " + machines.size() + " total");
-    }
-
-    private void updateWidgets(List<Machine> all) {
-        long okCount = 0;
-        long maintenanceCount = 0;
-        long manqueCount = 0;
-        long garantie = 0;
-        long noUser = 0;
-        long rj45 = 0;
-        long wifi = 0;
-        long both = 0;
-
-        Map<String, Long> lieuxCount = new HashMap<>();
-        Map<String, Long> sitesCount = new HashMap<>();
-        LocalDateTime maxUpdate = null;
-
-        for (Machine machine : all) {
-            String statut = machine.getStatut();
-            if (statut == null || statut.isBlank() || "Ok".equalsIgnoreCase(statut)) {
-                okCount++;
-            } else if ("Maintenance".equalsIgnoreCase(statut)) {
-                maintenanceCount++;
-            } else if ("Manque".equalsIgnoreCase(statut)) {
-                manqueCount++;
-            }
+    // Futures of AsyncMachineService complete on the FX thread, so the counter is only touched there.
+    private <T> CompletableFuture<T> track(CompletableFuture<T> work) {
+        pendingWork.set(pendingWork.get() + 1);
+        return work.whenComplete((result, error) -> pendingWork.set(pendingWork.get() - 1));
+    }
 
-            if (machine.isGarantie()) {
-                garantie++;
-            }
+    private String errorMessage(Throwable error) {
+        return AsyncMachineService.unwrap(error).getMessage();
+    }
 
-            String utilisateur = machine.getUtilisateur();
-            if (utilisateur == null || utilisateur.isBlank()) {
-                noUser++;
-            }
+    private CompletableFuture<Void> loadData() {
+        return track(pageLoader.reload()).thenRun(() -> {
+            refreshSummary();
+            applySearchFilter(searchField.getText());
+        }).exceptionally(error -> {
+            AlertUtil.error("Chargement", "Impossible de charger les machines: " + errorMessage(error));
+            return null;
+        });
+    }
 
-            String ipv4RJ45 = machine.getIpv4RJ45();
-            String ipv4Wifi = machine.getIpv4Wifi();
-            boolean hasRJ45 = ipv4RJ45 != null && !ipv4RJ45.isBlank();
-            boolean hasWifi = ipv4Wifi != null && !ipv4Wifi.isBlank();
+    // Merges only the rows changed since the last load, keeping the scroll position and the selection. The search
+    // runs again over the new snapshot, so merged rows that now match appear and those that no longer do leave.
+    private CompletableFuture<Void> refreshData() {
+        MachineSnapshot selected = machineTable.getSelectionModel().getSelectedItem();
+        return track(pageLoader.refreshChanges()).thenRun(() -> {
+            refreshSummary();
+            reselect(selected);
+            applySearchFilter(searchField.getText());
+        }).exceptionally(error -> {
+            AlertUtil.error("Rafraichir", errorMessage(error));
+            return null;
+        });
+    }
 
-            if (hasRJ45) {
-                rj45++;
-            }
-            if (hasWifi) {
-                wifi++;
-            }
-            if (hasRJ45 && hasWifi) {
-                both++;
-            }
+    // Counting every row may load the inventory into the service, so it runs after the first page is shown.
+    private void refreshSummary() {
+        int sequence = ++summarySequence;
+        asyncMachineService.call(service -> service.summary(DASHBOARD_TOP_ENTRIES))
+                .whenComplete((summary, error) -> {
+                    if (sequence != summarySequence) {
+                        return;
+                    }
+                    if (error != null) {
+                        LOGGER.log(Level.WARNING, "Unable to compute dashboard statistics",
+                                AsyncMachineService.unwrap(error));
+                        return;
+                    }
+                    inventorySummary = summary;
+                    updateWidgets();
+                });
+    }
 
-            addCount(lieuxCount, machine.getLieu());
-            addCount(sitesCount, machine.getSite());
+    private void onPageLoaded() {
+        updateCount();
+        updateWidgets();
+        // Small inventories are read completely in the background so search and widgets cover every row.
+        if (pageLoader.getTotalCount() <= EAGER_LOAD_THRESHOLD) {
+            pageLoader.requestNextPage();
+        }
+    }
 
-            LocalDateTime dateModif = machine.getDateModif();
-            if (dateModif != null && (maxUpdate == null || dateModif.isAfter(maxUpdate))) {
-                maxUpdate = dateModif;
+    private void attachScrollPaging() {
+        for (Node node : machineTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * SCROLL_PREFETCH_RATIO) {
+                        pageLoader.requestNextPage();
+                    }
+                });
+                return;
             }
         }
+    }
+
+    private void applySearchFilter(String searchText) {
+        // Stops the rows of a superseded search from being tested any further.
+        searchCancelled.set(true);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        searchCancelled = cancelled;
+        hideSuggestion();
+        SearchQuery query = SearchQuery.parse(searchText);
+        SearchResult previous = lastSearch;
+        // Above the eager-load threshold the list only holds the pages read so far: the same matches are shown
+        // as a result list instead of filtering the loaded rows.
+        if (!(query instanceof SearchQuery.All) && pageLoader.getTotalCount() > EAGER_LOAD_THRESHOLD) {
+            showSearchResults(query, asyncMachineService.call(
+                    service -> service.findMatching(query, previous, cancelled::get, SEARCH_RESULT_LIMIT)));
+            return;
+        }
 
-        statusOkCountLabel.setText(String.valueOf(okCount));
-        statusMaintenanceCountLabel.setText(String.valueOf(maintenanceCount));
-        statusManqueCountLabel.setText(String.valueOf(manqueCount));
-        topLieuxLabel.setText(formatTop(lieuxCount, 5));
-        siteDistributionLabel.setText(formatTop(sitesCount, 5));
-        garantieCountLabel.setText("Garantie: " + garantie + " / " + all.size() + "\nSans utilisateur: " + noUser);
-        networkCoverageLabel.setText("RJ45: " + rj45 + " | Wifi: " + wifi + "\nDouble reseau: " + both);
-        lastUpdateLabel.setText("Derniere maj globale: " + formatDateTime(maxUpdate));
+        int sequence = ++searchSequence;
+        resultListActive = false;
+        if (machineTable.getItems() != filteredMachines) {
+            machineTable.setItems(filteredMachines);
+            searchResults.clear();
+        }
+        if (query instanceof SearchQuery.All) {
+            showSearch(null);
+            filteredMachines.setPredicate(machine -> true);
+            updateCount();
+            return;
+        }
+        asyncMachineService.call(service -> service.findMatching(query, previous, cancelled::get))
+                .whenComplete((result, error) -> {
+                    if (sequence != searchSequence) {
+                        return;
+                    }
+                    if (error != null) {
+                        AlertUtil.error("Recherche", errorMessage(error));
+                        return;
+                    }
+                    showSearch(result);
+                    MachineSnapshot selected = machineTable.getSelectionModel().getSelectedItem();
+                    filteredMachines.setPredicate(machine -> result.contains(machine.id()));
+                    reselect(selected);
+                    updateCount();
+                    if (result.size() == 0) {
+                        offerSuggestion(query, sequence);
+                    }
+                });
+    }
+
+    // The filtered figures depend only on the matches, so they are counted again only when the query or the
+    // snapshot searched changes; appended pages and merged rows leave them alone.
+    private void showSearch(SearchResult result) {
+        SearchResult shown = lastSearch;
+        lastSearch = result;
+        boolean sameMatches = result == null
+                ? shown == null
+                : shown != null && shown.version() == result.version() && shown.query().equals(result.query());
+        if (!sameMatches) {
+            filteredStatsJob.request();
+        }
     }
 
-    private String formatTop(Map<String, Long> map, int limit) {
-        if (map.isEmpty()) {
-            return "Aucune donnee";
+    private void reselect(MachineSnapshot selected) {
+        if (selected != null && machineTable.getSelectionModel().getSelectedItem() != selected) {
+            machineTable.getItems().stream()
+                    .filter(machine -> machine.id() == selected.id())
+                    .findFirst()
+                    .ifPresent(machine -> machineTable.getSelectionModel().select(machine));
         }
-        return map.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
-                .limit(limit)
-                .map(e -> "• " + e.getKey() + " (" + e.getValue() + ")")
-                .collect(Collectors.joining("\n"));
     }
 
-    private void addCount(Map<String, Long> counter, String key) {
-        if (key == null || key.isBlank()) {
+    private void showSearchResults(SearchQuery query, CompletableFuture<SearchPage> search) {
+        int sequence = ++searchSequence;
+        search.whenComplete((page, error) -> {
+                    if (sequence != searchSequence) {
+                        return;
+                    }
+                    if (error != null) {
+                        AlertUtil.error("Recherche", errorMessage(error));
+                        return;
+                    }
+                    showSearch(page.result());
+                    searchResults.setAll(page.machines());
+                    resultListActive = true;
+                    if (machineTable.getItems() != searchResults) {
+                        machineTable.setItems(searchResults);
+                    }
+                    updateCount();
+                    if (page.result().version() == SearchResult.NO_SNAPSHOT) {
+                        searchAgainWhenLoaded(sequence);
+                    } else if (page.machines().isEmpty()) {
+                        offerSuggestion(query, sequence);
+                    }
+                });
+    }
+
+    // The first answer came from the database while the inventory was not loaded; the full search replaces it
+    // once the snapshot is in memory, unless another search started meanwhile.
+    private void searchAgainWhenLoaded(int sequence) {
+        asyncMachineService.snapshot().thenRun(() -> {
+            if (sequence == searchSequence) {
+                applySearchFilter(searchField.getText());
+            }
+        });
+    }
+
+    // A single word that found nothing may be a host name or serial number read off a sticker with a typo.
+    // Only a hint: it is dropped once another search starts, and a failure just leaves it hidden.
+    private void offerSuggestion(SearchQuery query, int sequence) {
+        if (!(query instanceof SearchQuery.Text text)) {
             return;
         }
-        counter.merge(key, 1L, Long::sum);
+        asyncMachineService.call(service -> service.suggestSimilar(text.needle(), 1))
+                .whenComplete((suggestions, error) -> {
+                    if (sequence != searchSequence || error != null || suggestions.isEmpty()) {
+                        return;
+                    }
+                    String suggestion = suggestions.get(0);
+                    suggestionLink.setText("Vouliez-vous dire " + suggestion + " ?");
+                    suggestionLink.setOnAction(event -> searchField.setText(suggestion));
+                    suggestionLink.setVisible(true);
+                    suggestionLink.setManaged(true);
+                });
     }
 
-    private void fillQuickSheet(Machine machine) {
-        selectedNomReseauLabel.setText(defaultText(machine.getNomReseau()));
-        selectedSerieLabel.setText(defaultText(machine.getSerieNmb()));
-        selectedModelLabel.setText(defaultText(machine.getModel()));
-        selectedUtilisateurLabel.setText(defaultText(machine.getUtilisateur()));
-        selectedEmplacementLabel.setText(defaultText(machine.getEmplacement()));
-        selectedDateMiseEnServiceLabel.setText(formatDate(machine.getDateMiseEnService()));
-        selectedDateModifLabel.setText(formatDateTime(machine.getDateModif()));
-        applyModelImage(machine.getModel());
-        selectedNoteLabel.setText(defaultText(machine.getNote()));
+    private void hideSuggestion() {
+        suggestionLink.setVisible(false);
+        suggestionLink.setManaged(false);
+    }
+
+    private void updateCount() {
+        if (resultListActive) {
+            String found = lastSearch.size() > searchResults.size()
+                    ? searchResults.size() + " premieres sur " + lastSearch.size()
+                    : String.valueOf(searchResults.size());
+            machinesCountLabel.setText(found + " machines trouvees / " + pageLoader.getTotalCount() + " total");
+            return;
+        }
+        if (pageLoader.isComplete()) {
+            machinesCountLabel.setText(filteredMachines.size() + " machines affichees / " + machines.size() + " total");
+            return;
+        }
+        machinesCountLabel.setText(filteredMachines.size() + " machines affichees / " + pageLoader.getTotalCount()
+                + " total (" + machines.size() + " chargees)");
+    }
+
+    private void updateWidgets() {
+        InventorySummary stats = filteredStatsToggle.isSelected() && filteredStats != null
+                ? filteredStats
+                : inventorySummary;
+        statusOkCountLabel.setText(String.valueOf(stats.ok()));
+        statusMaintenanceCountLabel.setText(String.valueOf(stats.maintenance()));
+        statusManqueCountLabel.setText(String.valueOf(stats.manque()));
+        topLieuxLabel.setText(formatTop(stats.topLieux()));
+        siteDistributionLabel.setText(formatTop(stats.topSites()));
+        garantieCountLabel.setText("Garantie: " + stats.garantie() + " / " + stats.count()
+                + "\nSans utilisateur: " + stats.noUser());
+        networkCoverageLabel.setText("RJ45: " + stats.rj45() + " | Wifi: " + stats.wifi()
+                + "\nDouble reseau: " + stats.both());
+        lastUpdateLabel.setText("Derniere maj globale: " + formatDateTime(stats.latestUpdate()));
+    }
+
+    private String formatTop(List<Map.Entry<String, Long>> top) {
+        if (top.isEmpty()) {
+            return "Aucune donnee";
+        }
+        return top.stream()
+                .map(e -> "• " + e.getKey() + " (" + e.getValue() + ")")
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void fillQuickSheet(MachineSnapshot machine) {
+        selectedNomReseauLabel.setText(defaultText(machine.nomReseau()));
+        selectedSerieLabel.setText(defaultText(machine.serieNmb()));
+        selectedModelLabel.setText(defaultText(machine.model()));
+        selectedUtilisateurLabel.setText(defaultText(machine.utilisateur()));
+        selectedEmplacementLabel.setText(defaultText(machine.emplacement()));
+        selectedDateMiseEnServiceLabel.setText(formatDate(machine.dateMiseEnService()));
+        selectedDateModifLabel.setText(formatDateTime(machine.dateModif()));
+        applyModelImage(machine.model());
+        selectedNoteLabel.setText(defaultText(machine.note()));
     }
 
     private void clearQuickSheet() {
@@ -364,11 +591,7 @@ public class MainController {
 
     @FXML
     private void onRefresh() {
-        try {
-            loadData();
-        } catch (Exception e) {
-            AlertUtil.error("Rafraichir", e.getMessage());
-        }
+        refreshData();
     }
 
     @FXML
@@ -423,28 +646,42 @@ public class MainController {
                 return;
             }
 
-            restoreDatabaseFile(selectedBackup);
-            ModelImageResolver.clearCache();
-            machineTable.getSelectionModel().clearSelection();
-            loadData();
-            clearQuickSheet();
-            updateDatabaseStatus("Backup charge le " + LocalDateTime.now().format(BACKUP_STATUS_FMT)
-                    + " depuis " + formatBackupSource(selectedBackup));
-            AlertUtil.info("OK", "Backup charge avec succes. La nouvelle base est active.");
+            track(asyncMachineService.call(service -> {
+                try {
+                    restoreDatabaseFile(selectedBackup);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    service.invalidateCache();
+                }
+                return selectedBackup;
+            })).whenComplete((result, error) -> {
+                if (error != null) {
+                    AlertUtil.error("Restauration backup", errorMessage(error));
+                    return;
+                }
+                ModelImageResolver.clearCache();
+                machineTable.getSelectionModel().clearSelection();
+                loadData();
+                clearQuickSheet();
+                updateDatabaseStatus("Backup charge le " + LocalDateTime.now().format(BACKUP_STATUS_FMT)
+                        + " depuis " + formatBackupSource(selectedBackup));
+                AlertUtil.info("OK", "Backup charge avec succes. La nouvelle base est active.");
+            });
         } catch (Exception e) {
             AlertUtil.error("Restauration backup", e.getMessage());
         }
     }
 
-    private void onOpenRequested(Machine machine) {
+    private void onOpenRequested(MachineSnapshot machine) {
         if (machine == null) {
             return;
         }
-        if (machine.getNomReseau() == null || machine.getNomReseau().isBlank()) {
+        if (machine.nomReseau() == null || machine.nomReseau().isBlank()) {
             AlertUtil.error("Erreur", "NomReseau manquant.");
             return;
         }
-        showMachineForm(copyMachine(machine));
+        showMachineForm(machine.toMachine());
     }
 
     @FXML
@@ -468,15 +705,27 @@ public class MainController {
             }
             Files.createDirectories(exportDir);
 
-            Path excelPath = exportDir.resolve("Machines.xlsx");
-            excelExportService.export(machineService.findAll(), excelPath);
-
-            if (databasePath != null && Files.exists(databasePath)) {
-                Path databaseCopy = exportDir.resolve(databasePath.getFileName().toString());
-                Files.copy(databasePath, databaseCopy, StandardCopyOption.REPLACE_EXISTING);
-            }
-
-            AlertUtil.info("OK", "Export termine dans:\n" + exportDir.toAbsolutePath());
+            Path targetDir = exportDir;
+            track(asyncMachineService.call(service -> {
+                try (Stream<MachineSnapshot> machinesToExport = service.streamAll()) {
+                    excelExportService.export(machinesToExport, targetDir.resolve("Machines.xlsx"));
+                }
+                if (databasePath != null && Files.exists(databasePath)) {
+                    Path databaseCopy = targetDir.resolve(databasePath.getFileName().toString());
+                    try {
+                        Files.copy(databasePath, databaseCopy, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return targetDir;
+            })).whenComplete((result, error) -> {
+                if (error != null) {
+                    AlertUtil.error("Erreur export", errorMessage(error));
+                } else {
+                    AlertUtil.info("OK", "Export termine dans:\n" + result.toAbsolutePath());
+                }
+            });
         } catch (Exception e) {
             AlertUtil.error("Erreur export", e.getMessage());
         }
@@ -484,23 +733,24 @@ public class MainController {
 
     @FXML
     private void onDeleteMachine() {
-        Machine selected = machineTable.getSelectionModel().getSelectedItem();
+        MachineSnapshot selected = machineTable.getSelectionModel().getSelectedItem();
         if (selected == null) {
             return;
         }
 
         boolean confirmed = AlertUtil.confirm(
                 "Confirmation suppression",
-                "Supprimer la machine '" + selected.getNomReseau() + "' ?"
+                "Supprimer la machine '" + selected.nomReseau() + "' ?"
         );
         if (confirmed) {
-            try {
-                machineService.delete(selected.getId());
+            track(asyncMachineService.delete(selected.id())).whenComplete((result, error) -> {
+                if (error != null) {
+                    AlertUtil.error("Suppression machine", errorMessage(error));
+                    return;
+                }
                 AlertUtil.info("OK", "Machine supprimee.");
-                loadData();
-            } catch (Exception e) {
-                AlertUtil.error("Suppression machine", e.getMessage());
-            }
+                refreshData();
+            });
         }
     }
 
@@ -568,9 +818,12 @@ public class MainController {
         try {
             validateBackupDatabase(temporaryDb);
             backupCurrentDatabaseBeforeRestore();
+            databaseManager.evictConnections();
             deleteSidecarFiles(databasePath);
             replaceDatabaseFile(temporaryDb, databasePath);
             deleteSidecarFiles(databasePath);
+            // Backups taken by older versions carry an older schema.
+            databaseManager.initialize();
         } finally {
             Files.deleteIfExists(temporaryDb);
             deleteSidecarFiles(temporaryDb);
@@ -644,21 +897,24 @@ public class MainController {
             Parent root = loader.load();
 
             MachineFormController controller = loader.getController();
-            controller.initialize(machineToEdit, machineService, new MachineFormController.FormCallbacks() {
+            controller.initialize(machineToEdit, asyncMachineService, new MachineFormController.FormCallbacks() {
                 @Override
-                public void onSave(Machine machine) {
-                    try {
-                        if (machine.getId() == null) {
-                            machineService.create(machine);
-                        } else {
-                            machineService.update(machine);
+                public CompletableFuture<?> onSave(Machine machine) {
+                    boolean creating = machine.getId() == null;
+                    CompletableFuture<Machine> save = creating
+                            ? asyncMachineService.create(machine)
+                            : asyncMachineService.update(machine);
+                    return track(save).whenComplete((result, error) -> {
+                        if (error != null) {
+                            AlertUtil.error("Sauvegarde machine", errorMessage(error));
+                            return;
+                        }
+                        if (!creating) {
                             AlertUtil.info("OK", "Machine sauvegardee.");
                         }
                         hideMachineForm();
-                        loadData();
-                    } catch (Exception e) {
-                        AlertUtil.error("Sauvegarde machine", e.getMessage());
-                    }
+                        refreshData();
+                    });
                 }
 
                 @Override
@@ -667,18 +923,19 @@ public class MainController {
                 }
 
                 @Override
-                public void onDelete(Machine machine) {
+                public CompletableFuture<?> onDelete(Machine machine) {
                     if (machine == null || machine.getId() == null) {
-                        return;
+                        return CompletableFuture.completedFuture(null);
                     }
-                    try {
-                        machineService.delete(machine.getId());
+                    return track(asyncMachineService.delete(machine.getId())).whenComplete((result, error) -> {
+                        if (error != null) {
+                            AlertUtil.error("Suppression machine", errorMessage(error));
+                            return;
+                        }
                         AlertUtil.info("OK", "Machine supprimee.");
                         hideMachineForm();
-                        loadData();
-                    } catch (Exception e) {
-                        AlertUtil.error("Suppression machine", e.getMessage());
-                    }
+                        refreshData();
+                    });
                 }
             });
 
@@ -712,31 +969,7 @@ public class MainController {
         return value == null || value.isBlank() ? "-" : value;
     }
 
-    private Machine copyMachine(Machine source) {
-        Machine m = new Machine();
-        m.setId(source.getId());
-        m.setNomReseau(source.getNomReseau());
-        m.setSerieNmb(source.getSerieNmb());
-        m.setModel(source.getModel());
-        m.setUtilisateur(source.getUtilisateur());
-        m.setEmplacement(source.getEmplacement());
-        m.setSite(source.getSite());
-        m.setLieu(source.getLieu());
-        m.setIpv4RJ45(source.getIpv4RJ45());
-        m.setIpv4Wifi(source.getIpv4Wifi());
-        m.setMacEthernet(source.getMacEthernet());
-        m.setMacWifi(source.getMacWifi());
-        m.setVlan(source.getVlan());
-        m.setGarantie(source.isGarantie());
-        m.setStatut(source.getStatut());
-        m.setNote(source.getNote());
-        m.setPurchaseDate(source.getPurchaseDate());
-        m.setDateMiseEnService(source.getDateMiseEnService());
-        m.setDateModif(source.getDateModif());
-        return m;
-    }
-
-    private static class StatusNetworkCell extends TableCell<Machine, String> {
+    private static class StatusNetworkCell extends TableCell<MachineSnapshot, String> {
 
         private final Label nameLabel = new Label();
         private final Label statusDot = new Label("●");
@@ -757,10 +990,10 @@ public class MainController {
                 return;
             }
 
-            Machine machine = (Machine) getTableRow().getItem();
+            MachineSnapshot machine = getTableRow().getItem();
             nameLabel.setText(item == null ? "" : item);
 
-            String statut = machine.getStatut();
+            String statut = machine.statut();
             if (statut != null && statut.equalsIgnoreCase("Maintenance")) {
                 statusDot.setStyle(STATUS_DOT_STYLE_MAINTENANCE);
             } else if (statut != null && statut.equalsIgnoreCase("Manque")) {
@@ -0,0 +1,161 @@
+package com.cspinventory.controller;
+
+import com.cspinventory.dao.MachineChanges;
+import com.cspinventory.model.InventorySnapshot;
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.service.AsyncMachineService;
+import javafx.collections.ObservableList;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Fills the table list page by page (keyset order) so the window is usable before the whole inventory is read.
+// All methods must be called on the JavaFX Application Thread; the queries run on the async service.
+final class PagedMachineLoader {
+
+    private static final Logger LOGGER = Logger.getLogger(PagedMachineLoader.class.getName());
+    private static final Comparator<MachineSnapshot> PAGE_ORDER = InventorySnapshot.ORDER;
+
+    private final AsyncMachineService asyncService;
+    private final ObservableList<MachineSnapshot> target;
+    private final int pageSize;
+    private final Runnable onPageLoaded;
+
+    private int generation;
+    private boolean loading;
+    private boolean complete;
+    private long totalCount;
+    private long syncPoint;
+
+    PagedMachineLoader(AsyncMachineService asyncService,
+                       ObservableList<MachineSnapshot> target,
+                       int pageSize,
+                       Runnable onPageLoaded) {
+        this.asyncService = asyncService;
+        this.target = target;
+        this.pageSize = pageSize;
+        this.onPageLoaded = onPageLoaded;
+    }
+
+    // Reads the sync point, the row count and the first page; none of them loads the whole inventory.
+    CompletableFuture<Void> reload() {
+        int requestGeneration = ++generation;
+        loading = false;
+        return asyncService.call(service -> new FirstPage(
+                        service.latestChange(),
+                        service.count(),
+                        service.findPage(null, null, pageSize)))
+                .thenAccept(firstPage -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    syncPoint = firstPage.syncPoint();
+                    totalCount = firstPage.totalCount();
+                    target.setAll(firstPage.machines());
+                    complete = firstPage.machines().size() < pageSize;
+                    onPageLoaded.run();
+                });
+    }
+
+    // Merges the rows changed since the last reload or refresh into the list by id. Rows are removed and
+    // re-inserted at their sorted position, so the list stays in page order and the table keeps its scroll
+    // position; a changed row that sorts after the loaded pages is left for the page that will contain it.
+    CompletableFuture<Void> refreshChanges() {
+        int requestGeneration = generation;
+        long since = syncPoint;
+        return asyncService.call(service -> {
+                    MachineChanges changes = service.findModifiedSince(since);
+                    return new Delta(changes, changes.isEmpty() ? -1 : service.count());
+                })
+                .thenCompose(delta -> {
+                    if (requestGeneration != generation) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (!delta.changes().complete()) {
+                        // Deletions this list had not seen were pruned; only a full read is exact.
+                        return reload();
+                    }
+                    merge(delta);
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    void requestNextPage() {
+        if (loading || complete || target.isEmpty()) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        MachineSnapshot last = target.get(target.size() - 1);
+
+        asyncService.findPage(last.nomReseau(), last.id(), pageSize)
+                .thenAccept(page -> appendPage(requestGeneration, page))
+                .exceptionally(error -> {
+                    LOGGER.log(Level.WARNING, "Unable to load machines page", AsyncMachineService.unwrap(error));
+                    if (requestGeneration == generation) {
+                        loading = false;
+                    }
+                    return null;
+                });
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    private void merge(Delta delta) {
+        MachineChanges changes = delta.changes();
+        syncPoint = Math.max(syncPoint, changes.syncPoint());
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (loading) {
+            // The page in flight may predate these changes; it is requested again from the merged list.
+            generation++;
+            loading = false;
+        }
+
+        List<MachineSnapshot> modified = changes.modified().stream().map(MachineSnapshot::of).toList();
+        Set<Long> replaced = new HashSet<>(changes.deletedIds());
+        modified.forEach(machine -> replaced.add(machine.id()));
+        target.removeIf(machine -> replaced.contains(machine.id()));
+
+        MachineSnapshot last = target.isEmpty() ? null : target.get(target.size() - 1);
+        for (MachineSnapshot machine : modified) {
+            if (!complete && last != null && PAGE_ORDER.compare(machine, last) > 0) {
+                continue;
+            }
+            int index = Collections.binarySearch(target, machine, PAGE_ORDER);
+            target.add(index < 0 ? -index - 1 : index, machine);
+        }
+
+        totalCount = delta.totalCount();
+        onPageLoaded.run();
+    }
+
+    private void appendPage(int requestGeneration, List<MachineSnapshot> page) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading = false;
+        target.addAll(page);
+        complete = page.size() < pageSize;
+        onPageLoaded.run();
+    }
+
+    private record FirstPage(long syncPoint, long totalCount, List<MachineSnapshot> machines) {
+    }
+
+    private record Delta(MachineChanges changes, long totalCount) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.cspinventory.dao;
+
+import com.cspinventory.model.Machine;
+
+import java.util.List;
+
+public record BatchResult(List<Machine> succeeded, List<Failure> failures) {
+
+    public BatchResult {
+        succeeded = List.copyOf(succeeded);
+        failures = List.copyOf(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    // index refers to the position of the machine in the list handed to the batch call.
+    public record Failure(int index, Machine machine, String message) {
+    }
+}
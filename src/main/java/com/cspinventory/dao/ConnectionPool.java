@@ -0,0 +1,181 @@
+package com.cspinventory.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public final class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final Database database;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(Database database, int maxSize, long borrowTimeoutMillis, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be >= 1");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must be >= 0");
+        }
+        this.database = database;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        acquirePermit();
+        return take();
+    }
+
+    // A connection if one is free right now, else null without waiting.
+    public PooledConnection tryBorrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        return take();
+    }
+
+    // Called with a permit held; releases it if no connection can be handed out.
+    private PooledConnection take() throws SQLException {
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    borrowed.incrementAndGet();
+                    return pooled.lease();
+                }
+                discard(pooled);
+            }
+
+            Connection connection = database.connect();
+            open.incrementAndGet();
+            created.incrementAndGet();
+            borrowed.incrementAndGet();
+            return new PooledConnection(this, connection, generation.get(), statementCacheSize).lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.generation() != generation.get() || !resetForReuse(pooled)) {
+                discard(pooled);
+            } else {
+                // LIFO keeps the most recently used connections (and their page cache) warm.
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Closes idle connections and marks borrowed ones stale; required before the database file is replaced.
+    public void evictAll() {
+        generation.incrementAndGet();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    public PoolStats stats() {
+        return new PoolStats(
+                maxSize,
+                open.get(),
+                idle.size(),
+                created.get(),
+                borrowed.get(),
+                waited.get(),
+                discarded.get(),
+                statementHits.get(),
+                statementMisses.get()
+        );
+    }
+
+    void recordStatementLookup(boolean hit) {
+        (hit ? statementHits : statementMisses).incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictAll();
+    }
+
+    private void acquirePermit() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        waited.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection (" + borrowTimeoutMillis + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            return !pooled.connection().isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean resetForReuse(PooledConnection pooled) {
+        try {
+            Connection connection = pooled.connection();
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Dropping pooled connection that could not be reset", e);
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        pooled.closePhysical();
+        open.decrementAndGet();
+        discarded.incrementAndGet();
+    }
+}
@@ -2,31 +2,55 @@ package com.cspinventory.dao;
 
 import com.cspinventory.util.AppPaths;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Objects;
 
 public final class Database {
 
+    // Applied to every connection: these settings are per-connection in SQLite and are lost on reconnect.
+    private static final List<String> CONNECTION_PRAGMAS = List.of(
+            "PRAGMA journal_mode=WAL",
+            "PRAGMA busy_timeout=5000",
+            "PRAGMA synchronous=NORMAL",
+            "PRAGMA cache_size=-16000",
+            "PRAGMA mmap_size=67108864",
+            "PRAGMA temp_store=MEMORY"
+    );
+
     private final AppPaths appPaths;
+    private final Path databasePath;
 
     public Database(AppPaths appPaths) {
         this.appPaths = Objects.requireNonNull(appPaths, "appPaths must not be null");
+        this.databasePath = appPaths.getDatabasePath();
+    }
+
+    public Database(Path databasePath) {
+        this.appPaths = null;
+        this.databasePath = Objects.requireNonNull(databasePath, "databasePath must not be null")
+                .toAbsolutePath()
+                .normalize();
     }
 
     public Connection connect() throws SQLException {
         try {
-            appPaths.ensureDirectories();
-        } catch (RuntimeException e) {
+            ensureDirectories();
+        } catch (RuntimeException | IOException e) {
             throw new SQLException("Unable to prepare database directories", e);
         }
 
-        Connection connection = DriverManager.getConnection(appPaths.getJdbcUrl());
+        Connection connection = DriverManager.getConnection(getJdbcUrl());
         try (Statement statement = connection.createStatement()) {
-            statement.execute("PRAGMA journal_mode=WAL");
-            statement.execute("PRAGMA synchronous=NORMAL");
+            for (String pragma : CONNECTION_PRAGMAS) {
+                statement.execute(pragma);
+            }
         } catch (SQLException e) {
             try {
                 connection.close();
@@ -38,4 +62,23 @@ public final class Database {
 
         return connection;
     }
+
+    public Path getDatabasePath() {
+        return databasePath;
+    }
+
+    public String getJdbcUrl() {
+        return appPaths != null ? appPaths.getJdbcUrl() : "jdbc:sqlite:" + databasePath;
+    }
+
+    private void ensureDirectories() throws IOException {
+        if (appPaths != null) {
+            appPaths.ensureDirectories();
+            return;
+        }
+        Path parent = databasePath.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
 }
@@ -2,38 +2,93 @@ package com.cspinventory.dao;
 
 import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.logging.Logger;
 
-public class DatabaseManager {
+public class DatabaseManager implements AutoCloseable {
 
     private static final Logger LOGGER = Logger.getLogger(DatabaseManager.class.getName());
+    private static final int POOL_SIZE = 4;
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = 10_000;
+    private static final int STATEMENT_CACHE_SIZE = 32;
 
     private final Path dbPath;
+    private final ConnectionPool connectionPool;
+    // Reads use connectionPool; all mutations go through the single writer of writeQueue.
+    private final ConnectionPool writerPool;
+    private final WriteQueue writeQueue;
+    private volatile long lastDataVersion;
+    private final SchemaMigrator schemaMigrator = new SchemaMigrator(List.of(
+            new SchemaMigration(1, "Machines table", this::createBaseSchema),
+            new SchemaMigration(2, "Full-text index", this::createFullTextIndex),
+            new SchemaMigration(3, "Case-insensitive NomReseau index", this::createNomReseauIndex),
+            new SchemaMigration(4, "Normalized date columns", new StoredDateNormalizer()),
+            new SchemaMigration(5, "Change sequence", this::createChangeSequence),
+            new SchemaMigration(6, "Normalized MAC keys", new MacAddressNormalizer())
+    ));
 
     public DatabaseManager(String dbFileName) {
+        this(dbFileName, STATEMENT_CACHE_SIZE);
+    }
+
+    public DatabaseManager(String dbFileName, int statementCacheSize) {
         this.dbPath = Path.of(dbFileName).toAbsolutePath();
+        Database database = new Database(dbPath);
+        this.connectionPool = new ConnectionPool(database, POOL_SIZE, POOL_BORROW_TIMEOUT_MILLIS, statementCacheSize);
+        this.writerPool = new ConnectionPool(database, 1, POOL_BORROW_TIMEOUT_MILLIS, statementCacheSize);
+        this.writeQueue = new WriteQueue(writerPool);
+    }
+
+    public PooledConnection getConnection() throws SQLException {
+        return connectionPool.borrow();
     }
 
-    public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+    // Runs the operation on the writer thread and returns once it is committed.
+    <T> T write(WriteQueue.Operation<T> operation) throws SQLException {
+        return writeQueue.execute(operation);
+    }
+
+    // Read on the writer connection, so commits made through write() leave it unchanged while commits
+    // from any other connection (another instance of the application, a restore) change it. The pool has that
+    // one connection only; while a group commit holds it the value read last is returned instead of waiting,
+    // and the next poll reads it again.
+    public long dataVersion() {
+        try (PooledConnection conn = writerPool.tryBorrow()) {
+            if (conn == null) {
+                return lastDataVersion;
+            }
+            try (Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery("PRAGMA data_version")) {
+                lastDataVersion = rs.next() ? rs.getLong(1) : 0L;
+                return lastDataVersion;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot read data version", e);
+        }
     }
 
     public void initialize() {
-        try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
-            statement.execute("PRAGMA journal_mode=WAL");
-            statement.execute("PRAGMA busy_timeout=5000");
+        try (PooledConnection connection = getConnection()) {
+            int version = schemaMigrator.migrate(connection.connection());
+            LOGGER.info("SQLite initialized at " + dbPath + " (schema version " + version + ")");
+        } catch (SQLException e) {
+            throw new RuntimeException("Unable to initialize SQLite database", e);
+        }
+    }
+
+    // Version 1 also adopts databases created before schema versioning: the legacy table name and the
+    // columns added since are probed once here, then never again.
+    private void createBaseSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
             migrateLegacyTable(statement);
             createMachinesTable(statement);
             ensureColumnExists(statement, "Maintenance", "INTEGER NOT NULL DEFAULT 0");
             ensureColumnExists(statement, "DateModif", "TEXT");
-            createIndexes(statement);
-            LOGGER.info("SQLite initialized at " + dbPath);
-        } catch (SQLException e) {
-            throw new RuntimeException("Unable to initialize SQLite database", e);
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_site ON Machines (Site)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_lieu ON Machines (Lieu)");
         }
     }
 
@@ -74,15 +129,157 @@ public class DatabaseManager {
     }
 
     private void ensureColumnExists(Statement statement, String columnName, String ddlDefinition) throws SQLException {
-        if (!columnExists(statement, "Machines", columnName)) {
-            statement.execute("ALTER TABLE Machines ADD COLUMN " + columnName + " " + ddlDefinition);
+        addColumnIfMissing(statement, "Machines", columnName, ddlDefinition);
+    }
+
+    private void createFullTextIndex(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            createFullTextIndex(statement);
         }
     }
 
-    private void createIndexes(Statement statement) throws SQLException {
-        statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_nomreseau ON Machines (NomReseau)");
-        statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_site ON Machines (Site)");
-        statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_lieu ON Machines (Lieu)");
+    private void createFullTextIndex(Statement statement) throws SQLException {
+        boolean backfill = !tableExists(statement, "MachinesFts");
+        statement.execute("""
+                CREATE VIRTUAL TABLE IF NOT EXISTS MachinesFts USING fts5(
+                    NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu, Note,
+                    IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi,
+                    content='Machines',
+                    tokenize='unicode61 remove_diacritics 2',
+                    prefix='2 3'
+                )
+                """);
+        statement.execute("""
+                CREATE TRIGGER IF NOT EXISTS machines_fts_ai AFTER INSERT ON Machines BEGIN
+                    INSERT INTO MachinesFts (rowid, NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
+                                             Note, IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi)
+                    VALUES (new.rowid, new.NomReseau, new.SerieNmb, new.Model, new.Utilisateur, new.Emplacement,
+                            new.Site, new.Lieu, new.Note, new.IPv4RJ45, new.IPv4Wifi, new.MACEthernet, new.MACWifi);
+                END
+                """);
+        statement.execute("""
+                CREATE TRIGGER IF NOT EXISTS machines_fts_ad AFTER DELETE ON Machines BEGIN
+                    INSERT INTO MachinesFts (MachinesFts, rowid, NomReseau, SerieNmb, Model, Utilisateur, Emplacement,
+                                             Site, Lieu, Note, IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi)
+                    VALUES ('delete', old.rowid, old.NomReseau, old.SerieNmb, old.Model, old.Utilisateur,
+                            old.Emplacement, old.Site, old.Lieu, old.Note, old.IPv4RJ45, old.IPv4Wifi,
+                            old.MACEthernet, old.MACWifi);
+                END
+                """);
+        // Only the indexed columns reindex a row, so setting ChangeSeq or a MAC key leaves MachinesFts alone.
+        statement.execute("""
+                CREATE TRIGGER IF NOT EXISTS machines_fts_au
+                AFTER UPDATE OF NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu, Note,
+                                IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi ON Machines BEGIN
+                    INSERT INTO MachinesFts (MachinesFts, rowid, NomReseau, SerieNmb, Model, Utilisateur, Emplacement,
+                                             Site, Lieu, Note, IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi)
+                    VALUES ('delete', old.rowid, old.NomReseau, old.SerieNmb, old.Model, old.Utilisateur,
+                            old.Emplacement, old.Site, old.Lieu, old.Note, old.IPv4RJ45, old.IPv4Wifi,
+                            old.MACEthernet, old.MACWifi);
+                    INSERT INTO MachinesFts (rowid, NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
+                                             Note, IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi)
+                    VALUES (new.rowid, new.NomReseau, new.SerieNmb, new.Model, new.Utilisateur, new.Emplacement,
+                            new.Site, new.Lieu, new.Note, new.IPv4RJ45, new.IPv4Wifi, new.MACEthernet, new.MACWifi);
+                END
+                """);
+
+        if (backfill) {
+            // Column weights for ORDER BY rank: hostname and serial hits first.
+            statement.execute("INSERT INTO MachinesFts (MachinesFts, rank) "
+                    + "VALUES ('rank', 'bm25(10.0, 8.0, 3.0, 3.0, 1.0, 1.0, 1.0, 1.0, 2.0, 2.0, 2.0, 2.0)')");
+            statement.execute("INSERT INTO MachinesFts (MachinesFts) VALUES ('rebuild')");
+            LOGGER.info("Full-text index built for existing machines");
+        }
+    }
+
+    // The UNIQUE NOCASE index serves existsNomReseau, findIdsByNomReseau and the keyset order. It replaces the
+    // plain NomReseau index, which duplicated the UNIQUE constraint's own index. Inventories that already hold
+    // names differing only by case keep a non-unique index until they are cleaned up.
+    private void createNomReseauIndex(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS idx_machines_nomreseau");
+            statement.execute("DROP INDEX IF EXISTS idx_machines_nomreseau_nocase");
+            String duplicate = findCaseInsensitiveDuplicate(statement);
+            if (duplicate == null) {
+                statement.execute(
+                        "CREATE UNIQUE INDEX idx_machines_nomreseau_nocase ON Machines (NomReseau COLLATE NOCASE)");
+            } else {
+                LOGGER.warning("NomReseau values differing only by case (e.g. '" + duplicate
+                        + "'); NomReseau index created without UNIQUE");
+                statement.execute(
+                        "CREATE INDEX idx_machines_nomreseau_nocase ON Machines (NomReseau COLLATE NOCASE)");
+            }
+        }
+    }
+
+    // Every insert, update and delete takes the next number of MachineChangeLog.LastSeq, assigned inside the
+    // writing transaction, so another instance can ask for the changes after the last number it has seen. A clock
+    // (DateModif) would not do: workstation clocks drift and fall back an hour in autumn. Tombstones are kept until
+    // every instance listed in MachineSyncPoints has seen them; PrunedThrough tells an instance that fell further
+    // behind that it has to read everything again.
+    private void createChangeSequence(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS MachineChangeLog (
+                        Id INTEGER PRIMARY KEY CHECK (Id = 1),
+                        LastSeq INTEGER NOT NULL,
+                        PrunedThrough INTEGER NOT NULL
+                    )
+                    """);
+            statement.execute("INSERT OR IGNORE INTO MachineChangeLog (Id, LastSeq, PrunedThrough) VALUES (1, 0, 0)");
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS MachineSyncPoints (
+                        ClientId TEXT PRIMARY KEY,
+                        ChangeSeq INTEGER NOT NULL,
+                        SeenAt TEXT NOT NULL
+                    )
+                    """);
+
+            addColumnIfMissing(statement, "Machines", "ChangeSeq", "INTEGER NOT NULL DEFAULT 0");
+            statement.execute("UPDATE MachineChangeLog SET LastSeq = LastSeq + 1 WHERE Id = 1");
+            statement.execute("UPDATE Machines SET ChangeSeq = (SELECT LastSeq FROM MachineChangeLog WHERE Id = 1)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_changeseq ON Machines (ChangeSeq)");
+
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS MachineTombstones (
+                        MachineId INTEGER PRIMARY KEY,
+                        ChangeSeq INTEGER NOT NULL
+                    )
+                    """);
+            statement.execute(
+                    "CREATE INDEX IF NOT EXISTS idx_machine_tombstones_changeseq ON MachineTombstones (ChangeSeq)");
+
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS machines_tombstone_ad AFTER DELETE ON Machines BEGIN
+                        UPDATE MachineChangeLog SET LastSeq = LastSeq + 1 WHERE Id = 1;
+                        INSERT OR REPLACE INTO MachineTombstones (MachineId, ChangeSeq)
+                        VALUES (old.rowid, (SELECT LastSeq FROM MachineChangeLog WHERE Id = 1));
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS machines_changeseq_ai AFTER INSERT ON Machines BEGIN
+                        UPDATE MachineChangeLog SET LastSeq = LastSeq + 1 WHERE Id = 1;
+                        UPDATE Machines SET ChangeSeq = (SELECT LastSeq FROM MachineChangeLog WHERE Id = 1)
+                        WHERE rowid = new.rowid;
+                    END
+                    """);
+            // The WHEN clause skips the trigger's own ChangeSeq update.
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS machines_changeseq_au AFTER UPDATE ON Machines
+                    WHEN new.ChangeSeq IS old.ChangeSeq BEGIN
+                        UPDATE MachineChangeLog SET LastSeq = LastSeq + 1 WHERE Id = 1;
+                        UPDATE Machines SET ChangeSeq = (SELECT LastSeq FROM MachineChangeLog WHERE Id = 1)
+                        WHERE rowid = new.rowid;
+                    END
+                    """);
+        }
+    }
+
+    private String findCaseInsensitiveDuplicate(Statement statement) throws SQLException {
+        String sql = "SELECT NomReseau FROM Machines GROUP BY NomReseau COLLATE NOCASE HAVING COUNT(1) > 1 LIMIT 1";
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
     }
 
     private boolean tableExists(Statement statement, String tableName) throws SQLException {
@@ -92,7 +289,16 @@ public class DatabaseManager {
         }
     }
 
-    private boolean columnExists(Statement statement, String tableName, String columnName) throws SQLException {
+    // Migrations add columns through this, so they can run again on a database rewound to an older version,
+    // which keeps the columns.
+    static void addColumnIfMissing(Statement statement, String tableName, String columnName, String ddlDefinition)
+            throws SQLException {
+        if (!columnExists(statement, tableName, columnName)) {
+            statement.execute("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + ddlDefinition);
+        }
+    }
+
+    private static boolean columnExists(Statement statement, String tableName, String columnName) throws SQLException {
         try (ResultSet rs = statement.executeQuery("PRAGMA table_info('" + tableName + "')")) {
             while (rs.next()) {
                 String name = rs.getString("name");
@@ -107,4 +313,30 @@ public class DatabaseManager {
     public Path getDbPath() {
         return dbPath;
     }
+
+    public PoolStats getPoolStats() {
+        return connectionPool.stats();
+    }
+
+    public PoolStats getWriterPoolStats() {
+        return writerPool.stats();
+    }
+
+    public WriteQueueStats getWriteQueueStats() {
+        return writeQueue.stats();
+    }
+
+    public void evictConnections() {
+        connectionPool.evictAll();
+        writerPool.evictAll();
+    }
+
+    @Override
+    public void close() {
+        writeQueue.close();
+        writerPool.close();
+        connectionPool.close();
+        LOGGER.info("SQLite connection pool closed: " + connectionPool.stats());
+        LOGGER.info("SQLite writer closed: " + writeQueue.stats() + ", " + writerPool.stats());
+    }
 }
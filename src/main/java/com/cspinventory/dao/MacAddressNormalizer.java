@@ -0,0 +1,63 @@
+package com.cspinventory.dao;
+
+import com.cspinventory.util.NetworkAddresses;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+// Adds MACEthernetKey and MACWifiKey, the 48-bit integer value of each MAC whatever its notation, fills them for
+// the existing rows and indexes them. The text columns are left as typed. SQLite has no hex parsing, so the keys
+// are computed here and by SQLiteMachineDao on every write rather than by a trigger.
+final class MacAddressNormalizer implements SchemaMigration.Step {
+
+    private static final Logger LOGGER = Logger.getLogger(MacAddressNormalizer.class.getName());
+
+    private static final String SELECT_SQL = "SELECT rowid, MACEthernet, MACWifi FROM Machines"
+            + " WHERE MACEthernet IS NOT NULL OR MACWifi IS NOT NULL";
+    private static final String UPDATE_SQL = "UPDATE Machines SET MACEthernetKey = ?, MACWifiKey = ? WHERE rowid = ?";
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            DatabaseManager.addColumnIfMissing(statement, "Machines", "MACEthernetKey", "INTEGER");
+            DatabaseManager.addColumnIfMissing(statement, "Machines", "MACWifiKey", "INTEGER");
+        }
+
+        int keyed = 0;
+        int unparsable = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(SELECT_SQL);
+             PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+            while (rs.next()) {
+                String ethernet = rs.getString(2);
+                String wifi = rs.getString(3);
+                long ethernetKey = NetworkAddresses.parseMac(ethernet);
+                long wifiKey = NetworkAddresses.parseMac(wifi);
+                unparsable += (ethernet != null && !ethernet.isBlank() && ethernetKey < 0 ? 1 : 0)
+                        + (wifi != null && !wifi.isBlank() && wifiKey < 0 ? 1 : 0);
+                if (ethernetKey >= 0 || wifiKey >= 0) {
+                    update.setObject(1, ethernetKey >= 0 ? ethernetKey : null);
+                    update.setObject(2, wifiKey >= 0 ? wifiKey : null);
+                    update.setLong(3, rs.getLong(1));
+                    update.addBatch();
+                    keyed++;
+                }
+            }
+            update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_macethernetkey ON Machines (MACEthernetKey)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_machines_macwifikey ON Machines (MACWifiKey)");
+        }
+
+        LOGGER.info("MAC keys stored on " + keyed + " machines");
+        if (unparsable > 0) {
+            LOGGER.warning(unparsable + " stored MAC addresses are not valid and have no key");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cspinventory.dao;
+
+import com.cspinventory.model.Machine;
+
+import java.util.List;
+
+// syncPoint is the value to pass to the next findModifiedSince call. complete is false when tombstones the
+// caller had not seen were already pruned: the deletions are incomplete and everything has to be read again.
+public record MachineChanges(List<Machine> modified, List<Long> deletedIds, long syncPoint, boolean complete) {
+
+    public MachineChanges {
+        modified = List.copyOf(modified);
+        deletedIds = List.copyOf(deletedIds);
+    }
+
+    public boolean isEmpty() {
+        return modified.isEmpty() && deletedIds.isEmpty();
+    }
+}
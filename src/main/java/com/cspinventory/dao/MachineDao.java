@@ -1,13 +1,45 @@
 package com.cspinventory.dao;
 
 import com.cspinventory.model.Machine;
+import com.cspinventory.model.SearchCriteria;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MachineDao {
     List<Machine> findAll();
 
+    // The returned stream holds an open cursor and must be closed (try-with-resources).
+    Stream<Machine> streamAll(int fetchSize);
+
+    // Next page after (afterNomReseau, afterId) in NomReseau COLLATE NOCASE order; null for the first page.
+    List<Machine> findPage(String afterNomReseau, Long afterId, int limit);
+
+    long count();
+
+    // Rows inserted or updated after the change number since, and ids deleted after it. Change numbers are
+    // assigned by the database in commit order, whatever the clock of the workstation that wrote.
+    MachineChanges findModifiedSince(long since);
+
+    // Change number of the latest insert, update or delete.
+    long latestChange();
+
+    // Records that clientId has seen every change up to syncPoint, then deletes the tombstones seen by every
+    // client heard from in the last days. Returns the number of tombstones deleted.
+    int pruneTombstones(String clientId, long syncPoint);
+
+    // Changes when another connection or process commits to the database; this DAO's own writes keep it.
+    long dataVersion();
+
+    // Field filters and full-text terms ANDed, the first limit matches in NomReseau order.
+    List<Machine> search(SearchCriteria criteria);
+
+    // Ranked prefix search over the FTS5 index; every term of the query must match.
+    List<Machine> searchFullText(String query, int limit);
+
     Optional<Machine> findById(long id);
 
     Machine save(Machine machine);
@@ -17,4 +49,13 @@ public interface MachineDao {
     void delete(long id);
 
     boolean existsNomReseau(String nomReseau, Long excludeId);
+
+    BatchResult saveAll(List<Machine> machines);
+
+    BatchResult updateAll(List<Machine> machines);
+
+    int deleteAll(Collection<Long> ids);
+
+    // Keys are the matching NomReseau values folded by TextFolding.foldNoCase, the rule of the unique index.
+    Map<String, Long> findIdsByNomReseau(Collection<String> nomReseaux);
 }
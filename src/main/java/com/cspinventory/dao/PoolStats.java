@@ -0,0 +1,23 @@
+package com.cspinventory.dao;
+
+public record PoolStats(
+        int maxSize,
+        int open,
+        int idle,
+        long created,
+        long borrowed,
+        long waited,
+        long discarded,
+        long statementCacheHits,
+        long statementCacheMisses
+) {
+
+    public int inUse() {
+        return open - idle;
+    }
+
+    public double statementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+}
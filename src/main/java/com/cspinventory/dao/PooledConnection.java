@@ -0,0 +1,127 @@
+package com.cspinventory.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final int generation;
+    private final int statementCacheSize;
+    private final Map<StatementKey, PreparedStatement> statementCache;
+    private final List<PreparedStatement> uncachedStatements = new ArrayList<>();
+    private boolean leased;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int generation, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.generation = generation;
+        this.statementCacheSize = statementCacheSize;
+        this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    // Cached statements belong to this connection: callers must close their ResultSets but never the statement.
+    public PreparedStatement prepareCached(String sql) throws SQLException {
+        return prepareCached(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement prepareCached(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+        PreparedStatement cached = statementCache.get(key);
+        if (cached != null && !cached.isClosed()) {
+            pool.recordStatementLookup(true);
+            cached.clearParameters();
+            return cached;
+        }
+
+        pool.recordStatementLookup(false);
+        PreparedStatement prepared = connection.prepareStatement(sql, autoGeneratedKeys);
+        if (statementCacheSize > 0) {
+            statementCache.put(key, prepared);
+        } else {
+            uncachedStatements.add(prepared);
+        }
+        return prepared;
+    }
+
+    @Override
+    public void close() {
+        if (leased) {
+            leased = false;
+            closeUncachedStatements();
+            pool.release(this);
+        }
+    }
+
+    PooledConnection lease() {
+        leased = true;
+        return this;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    void closePhysical() {
+        closeUncachedStatements();
+        for (PreparedStatement statement : statementCache.values()) {
+            closeQuietly(statement);
+        }
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // connection is being discarded anyway
+        }
+    }
+
+    private void closeUncachedStatements() {
+        for (PreparedStatement statement : uncachedStatements) {
+            closeQuietly(statement);
+        }
+        uncachedStatements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // statement is being evicted anyway
+        }
+    }
+
+    private record StatementKey(String sql, int autoGeneratedKeys) {
+    }
+}
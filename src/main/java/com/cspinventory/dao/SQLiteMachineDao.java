@@ -1,29 +1,63 @@
 package com.cspinventory.dao;
 
 import com.cspinventory.model.Machine;
+import com.cspinventory.model.SearchCriteria;
+import com.cspinventory.util.NetworkAddresses;
+import com.cspinventory.util.TextFolding;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Timestamp;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SQLiteMachineDao implements MachineDao {
 
+    private static final String SELECT_COLUMNS = """
+            SELECT rowid AS Id, NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
+                   IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi, VLAN,
+                   Garantie, Maintenance, Statut, Note, PurchaseDate, DateMiseEnService, DateModif
+            FROM Machines
+            """;
+    private static final String INSERT_SQL = """
+            INSERT INTO Machines (
+              NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
+              IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi, VLAN, Garantie, Maintenance,
+              Statut, Note, PurchaseDate, DateMiseEnService, DateModif, MACEthernetKey, MACWifiKey
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String UPDATE_SQL = """
+            UPDATE Machines SET
+              NomReseau = ?, SerieNmb = ?, Model = ?, Utilisateur = ?, Emplacement = ?, Site = ?, Lieu = ?,
+              IPv4RJ45 = ?, IPv4Wifi = ?, MACEthernet = ?, MACWifi = ?, VLAN = ?, Garantie = ?, Maintenance = ?,
+              Statut = ?, Note = ?, PurchaseDate = ?, DateMiseEnService = ?, DateModif = ?,
+              MACEthernetKey = ?, MACWifiKey = ?
+            WHERE rowid = ?
+            """;
+    private static final String ORDER_BY_NOM_RESEAU = "ORDER BY NomReseau COLLATE NOCASE, rowid";
+    private static final String DELETE_SQL = "DELETE FROM Machines WHERE rowid = ?";
+    private static final String MODIFIED_SINCE_SQL = SELECT_COLUMNS + "WHERE ChangeSeq > ? " + ORDER_BY_NOM_RESEAU;
+    private static final String DELETED_SINCE_SQL = "SELECT MachineId FROM MachineTombstones WHERE ChangeSeq > ?";
+    private static final String CHANGE_LOG_SQL = "SELECT LastSeq, PrunedThrough FROM MachineChangeLog WHERE Id = 1";
+    private static final int SQLITE_CONSTRAINT = 19;
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
     private final DatabaseManager databaseManager;
-    private static final DateTimeFormatter DB_DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final DateTimeFormatter UI_DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-    private static final DateTimeFormatter UI_DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     public SQLiteMachineDao(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
@@ -31,18 +65,11 @@ public class SQLiteMachineDao implements MachineDao {
 
     @Override
     public List<Machine> findAll() {
-        String sql = """
-                SELECT rowid AS Id, NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
-                       IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi, VLAN,
-                       Garantie, Maintenance, Statut, Note, PurchaseDate, DateMiseEnService, DateModif
-                FROM Machines
-                ORDER BY NomReseau COLLATE NOCASE
-                """;
+        String sql = SELECT_COLUMNS + ORDER_BY_NOM_RESEAU;
         List<Machine> machines = new ArrayList<>();
 
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        try (PooledConnection conn = databaseManager.getConnection();
+             ResultSet rs = conn.prepareCached(sql).executeQuery()) {
             while (rs.next()) {
                 machines.add(map(rs));
             }
@@ -53,16 +80,258 @@ public class SQLiteMachineDao implements MachineDao {
     }
 
     @Override
-    public Optional<Machine> findById(long id) {
-        String sql = """
-                SELECT rowid AS Id, NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
-                       IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi, VLAN,
-                       Garantie, Maintenance, Statut, Note, PurchaseDate, DateMiseEnService, DateModif
-                FROM Machines
-                WHERE rowid = ?
+    public Stream<Machine> streamAll(int fetchSize) {
+        String sql = SELECT_COLUMNS + ORDER_BY_NOM_RESEAU;
+        PooledConnection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = databaseManager.getConnection();
+            ps = conn.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            ResultSet rs = ps.executeQuery();
+            return StreamSupport.stream(new ResultSetSpliterator(rs), false)
+                    .onClose(closer(conn, ps, rs));
+        } catch (SQLException e) {
+            closer(conn, ps, null).run();
+            throw new RuntimeException("Cannot stream machines", e);
+        }
+    }
+
+    @Override
+    public List<Machine> findPage(String afterNomReseau, Long afterId, int limit) {
+        // Keyset pagination: the leading >= term lets SQLite seek idx_machines_nomreseau_nocase
+        // (a bare row-value comparison is evaluated as a filter over a full index scan).
+        String sql = afterNomReseau == null
+                ? SELECT_COLUMNS + ORDER_BY_NOM_RESEAU + " LIMIT ?"
+                : SELECT_COLUMNS
+                        + "WHERE NomReseau COLLATE NOCASE >= ? AND (NomReseau COLLATE NOCASE > ? OR rowid > ?) "
+                        + ORDER_BY_NOM_RESEAU + " LIMIT ?";
+        List<Machine> machines = new ArrayList<>(limit);
+
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareCached(sql);
+            int index = 1;
+            if (afterNomReseau != null) {
+                ps.setString(index++, afterNomReseau);
+                ps.setString(index++, afterNomReseau);
+                ps.setLong(index++, afterId != null ? afterId : Long.MIN_VALUE);
+            }
+            ps.setInt(index, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    machines.add(map(rs));
+                }
+            }
+            return machines;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot load machines page", e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try (PooledConnection conn = databaseManager.getConnection();
+             ResultSet rs = conn.prepareCached("SELECT COUNT(1) FROM Machines").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot count machines", e);
+        }
+    }
+
+    @Override
+    public MachineChanges findModifiedSince(long since) {
+        List<Machine> modified = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        long[] changeLog = new long[2];
+
+        // One read transaction so the rows, the tombstones and the sync point come from the same snapshot.
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            inTransaction(conn, () -> {
+                PreparedStatement ps = conn.prepareCached(MODIFIED_SINCE_SQL);
+                ps.setLong(1, since);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        modified.add(map(rs));
+                    }
+                }
+
+                ps = conn.prepareCached(DELETED_SINCE_SQL);
+                ps.setLong(1, since);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        deletedIds.add(rs.getLong(1));
+                    }
+                }
+
+                try (ResultSet rs = conn.prepareCached(CHANGE_LOG_SQL).executeQuery()) {
+                    if (rs.next()) {
+                        changeLog[0] = rs.getLong(1);
+                        changeLog[1] = rs.getLong(2);
+                    }
+                }
+            });
+            return new MachineChanges(modified, deletedIds, changeLog[0], since >= changeLog[1]);
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot load modified machines", e);
+        }
+    }
+
+    @Override
+    public long latestChange() {
+        try (PooledConnection conn = databaseManager.getConnection();
+             ResultSet rs = conn.prepareCached(CHANGE_LOG_SQL).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot read last modification", e);
+        }
+    }
+
+    // Clients not heard from for a week are forgotten, so a closed instance does not keep every tombstone;
+    // if it comes back, its sync point is below PrunedThrough and it reads everything again.
+    @Override
+    public int pruneTombstones(String clientId, long syncPoint) {
+        try {
+            return databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached("""
+                        INSERT INTO MachineSyncPoints (ClientId, ChangeSeq, SeenAt) VALUES (?, ?, datetime('now'))
+                        ON CONFLICT (ClientId) DO UPDATE SET ChangeSeq = excluded.ChangeSeq, SeenAt = excluded.SeenAt
+                        """);
+                ps.setString(1, clientId);
+                ps.setLong(2, syncPoint);
+                ps.executeUpdate();
+                conn.prepareCached("DELETE FROM MachineSyncPoints WHERE SeenAt < datetime('now', '-7 days')")
+                        .executeUpdate();
+
+                long oldest;
+                try (ResultSet rs = conn.prepareCached("SELECT MIN(ChangeSeq) FROM MachineSyncPoints").executeQuery()) {
+                    oldest = rs.next() ? rs.getLong(1) : 0L;
+                }
+                ps = conn.prepareCached("DELETE FROM MachineTombstones WHERE ChangeSeq <= ?");
+                ps.setLong(1, oldest);
+                int pruned = ps.executeUpdate();
+                ps = conn.prepareCached(
+                        "UPDATE MachineChangeLog SET PrunedThrough = MAX(PrunedThrough, ?) WHERE Id = 1");
+                ps.setLong(1, oldest);
+                ps.executeUpdate();
+                return pruned;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot prune deleted machines", e);
+        }
+    }
+
+    @Override
+    public long dataVersion() {
+        return databaseManager.dataVersion();
+    }
+
+    @Override
+    public List<Machine> search(SearchCriteria criteria) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        // Equality filters first: Site and Lieu are served by idx_machines_site / idx_machines_lieu.
+        if (criteria.site() != null) {
+            conditions.add("Site = ?");
+            params.add(criteria.site());
+        }
+        if (criteria.lieu() != null) {
+            conditions.add("Lieu = ?");
+            params.add(criteria.lieu());
+        }
+        if (criteria.garantie() != null) {
+            conditions.add("Garantie = ?");
+            params.add(criteria.garantie() ? 1 : 0);
+        }
+        String match = toFtsPrefixQuery(criteria.text());
+        if (match != null) {
+            conditions.add("Machines.rowid IN (SELECT rowid FROM MachinesFts WHERE MachinesFts MATCH ?)");
+            params.add(match);
+        }
+
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        String sql = SELECT_COLUMNS + where + ORDER_BY_NOM_RESEAU + " LIMIT ?";
+        params.add(criteria.limit());
+
+        List<Machine> machines = new ArrayList<>();
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareCached(sql);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    machines.add(map(rs));
+                }
+            }
+            return machines;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot search machines", e);
+        }
+    }
+
+    @Override
+    public List<Machine> searchFullText(String query, int limit) {
+        // FTS splits MACs on their separators, so a whole MAC in any notation is also looked up by its key.
+        // Those rows come first; the text matches (the same digits in a serial or a note) follow.
+        long mac = NetworkAddresses.parseMac(query);
+        List<Machine> machines = mac >= 0 ? findByMacKey(mac, limit) : new ArrayList<>();
+        String match = toFtsPrefixQuery(query);
+        if (match == null || machines.size() >= limit) {
+            return machines;
+        }
+        Set<Long> found = new HashSet<>();
+        machines.forEach(machine -> found.add(machine.getId()));
+        String sql = SELECT_COLUMNS + """
+                JOIN (
+                    SELECT rowid AS FtsRowid, rank AS FtsRank FROM MachinesFts
+                    WHERE MachinesFts MATCH ? ORDER BY rank LIMIT ?
+                ) ranked ON ranked.FtsRowid = Machines.rowid
+                ORDER BY ranked.FtsRank, NomReseau COLLATE NOCASE
                 """;
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareCached(sql);
+            ps.setString(1, match);
+            ps.setInt(2, limit + found.size());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next() && machines.size() < limit) {
+                    Machine machine = map(rs);
+                    if (found.add(machine.getId())) {
+                        machines.add(machine);
+                    }
+                }
+            }
+            return machines;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot run full-text search", e);
+        }
+    }
+
+    private List<Machine> findByMacKey(long mac, int limit) {
+        String sql = SELECT_COLUMNS + "WHERE MACEthernetKey = ? OR MACWifiKey = ? " + ORDER_BY_NOM_RESEAU + " LIMIT ?";
+        List<Machine> machines = new ArrayList<>();
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareCached(sql);
+            ps.setLong(1, mac);
+            ps.setLong(2, mac);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    machines.add(map(rs));
+                }
+            }
+            return machines;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot search machines by MAC", e);
+        }
+    }
+
+    @Override
+    public Optional<Machine> findById(long id) {
+        String sql = SELECT_COLUMNS + "WHERE rowid = ?";
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareCached(sql);
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -77,62 +346,56 @@ public class SQLiteMachineDao implements MachineDao {
 
     @Override
     public Machine save(Machine machine) {
-        String sql = """
-                INSERT INTO Machines (
-                  NomReseau, SerieNmb, Model, Utilisateur, Emplacement, Site, Lieu,
-                  IPv4RJ45, IPv4Wifi, MACEthernet, MACWifi, VLAN, Garantie, Maintenance,
-                  Statut, Note, PurchaseDate, DateMiseEnService, DateModif
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            bind(machine, ps);
-            ps.executeUpdate();
-
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) {
-                    machine.setId(keys.getLong(1));
+        try {
+            Long id = databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                bind(machine, ps);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    return keys.next() ? keys.getLong(1) : null;
                 }
+            });
+            if (id != null) {
+                machine.setId(id);
             }
             return machine;
         } catch (SQLException e) {
+            if (isNomReseauConflict(e)) {
+                throw new IllegalArgumentException("NomReseau existe deja", e);
+            }
             throw new RuntimeException("Cannot create machine", e);
         }
     }
 
     @Override
     public Machine update(Machine machine) {
-        String sql = """
-                UPDATE Machines SET
-                  NomReseau = ?, SerieNmb = ?, Model = ?, Utilisateur = ?, Emplacement = ?, Site = ?, Lieu = ?,
-                  IPv4RJ45 = ?, IPv4Wifi = ?, MACEthernet = ?, MACWifi = ?, VLAN = ?, Garantie = ?, Maintenance = ?,
-                  Statut = ?, Note = ?, PurchaseDate = ?, DateMiseEnService = ?, DateModif = ?
-                WHERE rowid = ?
-                """;
-
-        try (Connection conn = databaseManager.getConnection();
-            PreparedStatement ps = conn.prepareStatement(sql)) {
-            bind(machine, ps);
-            ps.setLong(20, machine.getId());
-            int updatedRows = ps.executeUpdate();
+        try {
+            int updatedRows = databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached(UPDATE_SQL);
+                bind(machine, ps);
+                ps.setLong(22, machine.getId());
+                return ps.executeUpdate();
+            });
             if (updatedRows != 1) {
                 throw new IllegalArgumentException("Machine introuvable pour id " + machine.getId());
             }
             return machine;
         } catch (SQLException e) {
+            if (isNomReseauConflict(e)) {
+                throw new IllegalArgumentException("NomReseau existe deja", e);
+            }
             throw new RuntimeException("Cannot update machine", e);
         }
     }
 
     @Override
     public void delete(long id) {
-        String sql = "DELETE FROM Machines WHERE rowid = ?";
-
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
+        try {
+            databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached(DELETE_SQL);
+                ps.setLong(1, id);
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Cannot delete machine", e);
         }
@@ -140,11 +403,12 @@ public class SQLiteMachineDao implements MachineDao {
 
     @Override
     public boolean existsNomReseau(String nomReseau, Long excludeId) {
-        String sql = "SELECT COUNT(1) FROM Machines WHERE lower(NomReseau) = lower(?)"
-                + (excludeId != null ? " AND rowid <> ?" : "");
+        String sql = excludeId != null
+                ? "SELECT COUNT(1) FROM Machines WHERE NomReseau COLLATE NOCASE = ? AND rowid <> ?"
+                : "SELECT COUNT(1) FROM Machines WHERE NomReseau COLLATE NOCASE = ?";
 
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareCached(sql);
             ps.setString(1, nomReseau);
             if (excludeId != null) {
                 ps.setLong(2, excludeId);
@@ -158,6 +422,198 @@ public class SQLiteMachineDao implements MachineDao {
         }
     }
 
+    @Override
+    public BatchResult saveAll(List<Machine> machines) {
+        List<Machine> succeeded = new ArrayList<>();
+        List<BatchResult.Failure> failures = new ArrayList<>();
+        long[] generatedIds = new long[machines.size()];
+
+        try {
+            databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                for (int i = 0; i < machines.size(); i++) {
+                    Machine machine = machines.get(i);
+                    try {
+                        bind(machine, ps);
+                        ps.executeUpdate();
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            generatedIds[i] = keys.next() ? keys.getLong(1) : 0L;
+                        }
+                        succeeded.add(machine);
+                    } catch (SQLException e) {
+                        failures.add(new BatchResult.Failure(i, machine, describeRowFailure(e)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot create machines", e);
+        }
+
+        // Ids are only published once the transaction is committed.
+        for (int i = 0; i < machines.size(); i++) {
+            if (generatedIds[i] != 0L) {
+                machines.get(i).setId(generatedIds[i]);
+            }
+        }
+        return new BatchResult(succeeded, failures);
+    }
+
+    @Override
+    public BatchResult updateAll(List<Machine> machines) {
+        List<Machine> succeeded = new ArrayList<>();
+        List<BatchResult.Failure> failures = new ArrayList<>();
+
+        try {
+            databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached(UPDATE_SQL);
+                for (int i = 0; i < machines.size(); i++) {
+                    Machine machine = machines.get(i);
+                    try {
+                        bind(machine, ps);
+                        ps.setLong(22, machine.getId());
+                        if (ps.executeUpdate() == 1) {
+                            succeeded.add(machine);
+                        } else {
+                            failures.add(new BatchResult.Failure(i, machine,
+                                    "Machine introuvable pour id " + machine.getId()));
+                        }
+                    } catch (SQLException e) {
+                        failures.add(new BatchResult.Failure(i, machine, describeRowFailure(e)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot update machines", e);
+        }
+        return new BatchResult(succeeded, failures);
+    }
+
+    @Override
+    public int deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try {
+            return databaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareCached(DELETE_SQL);
+                for (Long id : ids) {
+                    ps.setLong(1, id);
+                    ps.addBatch();
+                }
+                int deleted = 0;
+                for (int count : ps.executeBatch()) {
+                    deleted += Math.max(count, 0);
+                }
+                return deleted;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot delete machines", e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> findIdsByNomReseau(Collection<String> nomReseaux) {
+        Map<String, Long> ids = new HashMap<>();
+        // The values are compared with COLLATE NOCASE as typed; folding them in Java first would lower-case
+        // letters NOCASE leaves alone.
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String value : nomReseaux) {
+            if (value != null) {
+                byKey.putIfAbsent(TextFolding.foldNoCase(value), value);
+            }
+        }
+        List<String> values = List.copyOf(byKey.values());
+
+        try (PooledConnection conn = databaseManager.getConnection()) {
+            for (int from = 0; from < values.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = values.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, values.size()));
+                String sql = "SELECT rowid, NomReseau FROM Machines WHERE NomReseau COLLATE NOCASE IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ps.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            ids.put(TextFolding.foldNoCase(rs.getString(2)), rs.getLong(1));
+                        }
+                    }
+                }
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new RuntimeException("Cannot validate NomReseau uniqueness", e);
+        }
+    }
+
+    // Every whitespace-separated term becomes a quoted prefix phrase, so user input never reaches the FTS5 syntax.
+    private String toFtsPrefixQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : query.trim().split("\\s+")) {
+            terms.add("\"" + term.replace("\"", "\"\"") + "\"*");
+        }
+        return String.join(" ", terms);
+    }
+
+    private Runnable closer(PooledConnection conn, PreparedStatement ps, ResultSet rs) {
+        return () -> {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (ps != null) {
+                    ps.close();
+                }
+            } catch (SQLException ignored) {
+                // the connection is released below either way
+            } finally {
+                if (conn != null) {
+                    conn.close();
+                }
+            }
+        };
+    }
+
+    private void inTransaction(PooledConnection conn, SqlWork work) throws SQLException {
+        Connection connection = conn.connection();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // A constraint violation only aborts its own statement in SQLite; anything else aborts the whole batch.
+    private String describeRowFailure(SQLException e) throws SQLException {
+        if (e.getErrorCode() != SQLITE_CONSTRAINT) {
+            throw e;
+        }
+        if (isNomReseauConflict(e)) {
+            return "NomReseau existe deja";
+        }
+        return "Contrainte non respectee: " + e.getMessage();
+    }
+
+    private boolean isNomReseauConflict(SQLException e) {
+        return e.getErrorCode() == SQLITE_CONSTRAINT
+                && e.getMessage() != null
+                && e.getMessage().contains("Machines.NomReseau");
+    }
+
     private void bind(Machine machine, PreparedStatement ps) throws SQLException {
         ps.setString(1, machine.getNomReseau());
         ps.setString(2, machine.getSerieNmb());
@@ -177,7 +633,14 @@ public class SQLiteMachineDao implements MachineDao {
         ps.setString(16, machine.getNote());
         ps.setString(17, machine.getPurchaseDate() != null ? machine.getPurchaseDate().toString() : null);
         ps.setString(18, machine.getDateMiseEnService() != null ? machine.getDateMiseEnService().toString() : null);
-        ps.setString(19, machine.getDateModif() != null ? machine.getDateModif().format(DB_DATE_TIME_FORMAT) : null);
+        ps.setString(19, StoredDates.formatDateTime(machine.getDateModif()));
+        ps.setObject(20, macKey(machine.getMacEthernet()));
+        ps.setObject(21, macKey(machine.getMacWifi()));
+    }
+
+    private static Long macKey(String mac) {
+        long key = NetworkAddresses.parseMac(mac);
+        return key >= 0 ? key : null;
     }
 
     private Machine map(ResultSet rs) throws SQLException {
@@ -199,14 +662,14 @@ public class SQLiteMachineDao implements MachineDao {
         machine.setStatut(resolveStatut(rs.getInt("Maintenance"), rs.getString("Statut")));
         machine.setNote(rs.getString("Note"));
 
-        machine.setPurchaseDate(parseDate(rs.getString("PurchaseDate")));
-        machine.setDateMiseEnService(parseDate(rs.getString("DateMiseEnService")));
-        machine.setDateModif(parseDateModif(rs.getString("DateModif")));
+        machine.setPurchaseDate(StoredDates.parseDate(rs.getString("PurchaseDate")));
+        machine.setDateMiseEnService(StoredDates.parseDate(rs.getString("DateMiseEnService")));
+        machine.setDateModif(StoredDates.parseDateTime(rs.getString("DateModif")));
 
         return machine;
     }
 
-    private String resolveStatut(int maintenance, String statut) {
+    private static String resolveStatut(int maintenance, String statut) {
         if (statut != null && !statut.isBlank()) {
             return statut;
         }
@@ -216,76 +679,31 @@ public class SQLiteMachineDao implements MachineDao {
         return "Ok";
     }
 
-    private LocalDate parseDate(String raw) {
-        if (raw == null || raw.isBlank()) {
-            return null;
-        }
-        String value = raw.trim();
-        try {
-            return LocalDate.parse(value);
-        } catch (DateTimeParseException ignored) {
-        }
-        try {
-            return LocalDateTime.parse(value).toLocalDate();
-        } catch (DateTimeParseException ignored) {
-        }
-        try {
-            return LocalDate.parse(value, UI_DATE_FORMAT);
-        } catch (DateTimeParseException ignored) {
-        }
-        try {
-            return LocalDateTime.parse(value, UI_DATE_TIME_FORMAT).toLocalDate();
-        } catch (DateTimeParseException ignored) {
-        }
-        try {
-            return Instant.parse(value).atZone(ZoneId.systemDefault()).toLocalDate();
-        } catch (DateTimeParseException ignored) {
-            return null;
-        }
-    }
+    private final class ResultSetSpliterator extends Spliterators.AbstractSpliterator<Machine> {
 
-    private LocalDateTime parseDateModif(String raw) {
-        if (raw == null || raw.isBlank()) {
-            return null;
-        }
+        private final ResultSet rs;
 
-        String value = raw.trim();
+        private ResultSetSpliterator(ResultSet rs) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+        }
 
-        if (value.chars().allMatch(Character::isDigit)) {
+        @Override
+        public boolean tryAdvance(Consumer<? super Machine> action) {
             try {
-                long millis = Long.parseLong(value);
-                return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDateTime();
-            } catch (NumberFormatException ignored) {
-                // fall through to other parsers
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(map(rs));
+                return true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Cannot stream machines", e);
             }
         }
+    }
 
-        try {
-            return Timestamp.valueOf(value).toLocalDateTime();
-        } catch (IllegalArgumentException ignored) {
-            // fall through to other parsers
-        }
-
-        try {
-            return LocalDateTime.parse(value);
-        } catch (DateTimeParseException ignored) {
-            // fall through to final parser
-        }
-        try {
-            return LocalDateTime.parse(value, UI_DATE_TIME_FORMAT);
-        } catch (DateTimeParseException ignored) {
-            // fall through to final parser
-        }
-        try {
-            return LocalDate.parse(value, UI_DATE_FORMAT).atStartOfDay();
-        } catch (DateTimeParseException ignored) {
-            // fall through to final parser
-        }
-
-        try {
-            return Instant.parse(value).atZone(ZoneId.systemDefault()).toLocalDateTime();
-        } catch (DateTimeParseException ignored) {
-            return null;
-        }
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException;
     }
 }
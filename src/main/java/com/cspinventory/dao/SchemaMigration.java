@@ -0,0 +1,18 @@
+package com.cspinventory.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public record SchemaMigration(int version, String description, Step step) {
+
+    public SchemaMigration {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration version must be >= 1");
+        }
+    }
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cspinventory.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+// Applies schema migrations in version order and records the reached version in PRAGMA user_version.
+// Each migration runs in its own BEGIN IMMEDIATE transaction, so a failed step leaves the previous version intact
+// and two processes opening the same file cannot apply the same step twice.
+public final class SchemaMigrator {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private final List<SchemaMigration> migrations;
+
+    public SchemaMigrator(List<SchemaMigration> migrations) {
+        List<SchemaMigration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(SchemaMigration::version));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).version() == sorted.get(i - 1).version()) {
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).version());
+            }
+        }
+        this.migrations = List.copyOf(sorted);
+    }
+
+    public int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+    }
+
+    public int migrate(Connection connection) throws SQLException {
+        int version = currentVersion(connection);
+        if (version >= latestVersion()) {
+            if (version > latestVersion()) {
+                LOGGER.warning("Database schema version " + version
+                        + " is newer than this application (" + latestVersion() + ")");
+            }
+            return version;
+        }
+
+        for (SchemaMigration migration : migrations) {
+            if (migration.version() > version) {
+                version = apply(connection, migration);
+            }
+        }
+        return version;
+    }
+
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private int apply(Connection connection, SchemaMigration migration) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("BEGIN IMMEDIATE");
+            try {
+                // Another process may have migrated while we waited for the write lock.
+                int version = currentVersion(connection);
+                if (version >= migration.version()) {
+                    statement.execute("COMMIT");
+                    return version;
+                }
+                migration.step().apply(connection);
+                statement.execute("PRAGMA user_version = " + migration.version());
+                statement.execute("COMMIT");
+                LOGGER.info("Schema migrated to version " + migration.version() + ": " + migration.description());
+                return migration.version();
+            } catch (SQLException | RuntimeException e) {
+                statement.execute("ROLLBACK");
+                throw e;
+            }
+        }
+    }
+}
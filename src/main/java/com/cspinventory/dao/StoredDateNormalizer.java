@@ -0,0 +1,85 @@
+package com.cspinventory.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+// Rewrites PurchaseDate, DateMiseEnService and DateModif values left in legacy formats (dd.MM.yyyy, ISO
+// instants, epoch millis...) into the canonical forms of StoredDates. Values no parser understands are kept
+// as they are, so nothing typed by a user is lost.
+final class StoredDateNormalizer implements SchemaMigration.Step {
+
+    private static final Logger LOGGER = Logger.getLogger(StoredDateNormalizer.class.getName());
+
+    private static final String ISO_DATE_GLOB = "'[0-9][0-9][0-9][0-9]-[0-9][0-9]-[0-9][0-9]'";
+    private static final String ISO_DATE_TIME_GLOB =
+            "'[0-9][0-9][0-9][0-9]-[0-9][0-9]-[0-9][0-9] [0-9][0-9]:[0-9][0-9]:[0-9][0-9]'";
+
+    private static final String SELECT_SQL = "SELECT rowid, PurchaseDate, DateMiseEnService, DateModif FROM Machines"
+            + " WHERE PurchaseDate NOT GLOB " + ISO_DATE_GLOB
+            + " OR DateMiseEnService NOT GLOB " + ISO_DATE_GLOB
+            + " OR DateModif NOT GLOB " + ISO_DATE_TIME_GLOB;
+    private static final String UPDATE_SQL =
+            "UPDATE Machines SET PurchaseDate = ?, DateMiseEnService = ?, DateModif = ? WHERE rowid = ?";
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        int normalized = 0;
+        int unparsable = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(SELECT_SQL);
+             PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+            while (rs.next()) {
+                String purchaseDate = rs.getString(2);
+                String dateMiseEnService = rs.getString(3);
+                String dateModif = rs.getString(4);
+
+                String newPurchaseDate = normalizeDate(purchaseDate);
+                String newDateMiseEnService = normalizeDate(dateMiseEnService);
+                String newDateModif = normalizeDateTime(dateModif);
+                unparsable += (newPurchaseDate != null && StoredDates.parseIsoDate(newPurchaseDate) == null ? 1 : 0)
+                        + (newDateMiseEnService != null && StoredDates.parseIsoDate(newDateMiseEnService) == null ? 1 : 0)
+                        + (newDateModif != null && StoredDates.parseIsoDateTime(newDateModif) == null ? 1 : 0);
+
+                if (!Objects.equals(purchaseDate, newPurchaseDate)
+                        || !Objects.equals(dateMiseEnService, newDateMiseEnService)
+                        || !Objects.equals(dateModif, newDateModif)) {
+                    update.setString(1, newPurchaseDate);
+                    update.setString(2, newDateMiseEnService);
+                    update.setString(3, newDateModif);
+                    update.setLong(4, rs.getLong(1));
+                    update.addBatch();
+                    normalized++;
+                }
+            }
+            update.executeBatch();
+        }
+
+        LOGGER.info("Dates normalized on " + normalized + " machines");
+        if (unparsable > 0) {
+            LOGGER.warning(unparsable + " stored dates could not be normalized and were kept as is");
+        }
+    }
+
+    private String normalizeDate(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        LocalDate date = StoredDates.parseDate(raw);
+        return date != null ? date.toString() : raw;
+    }
+
+    private String normalizeDateTime(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        LocalDateTime dateTime = StoredDates.parseDateTime(raw);
+        return dateTime != null ? StoredDates.formatDateTime(dateTime) : raw;
+    }
+}
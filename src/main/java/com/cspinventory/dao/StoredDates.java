@@ -0,0 +1,160 @@
+package com.cspinventory.dao;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Date columns are stored as ISO dates (yyyy-MM-dd) and DateModif as yyyy-MM-dd HH:mm:ss, which also sorts
+// chronologically as text. The fast parsers only accept those forms and return null instead of throwing;
+// the legacy parsers cover rows written by older versions that could not be normalized.
+final class StoredDates {
+
+    static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final DateTimeFormatter UI_DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter UI_DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+    private StoredDates() {
+    }
+
+    static LocalDate parseDate(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return null;
+        }
+        LocalDate date = parseIsoDate(raw);
+        return date != null ? date : parseLegacyDate(raw);
+    }
+
+    static LocalDateTime parseDateTime(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return null;
+        }
+        LocalDateTime dateTime = parseIsoDateTime(raw);
+        return dateTime != null ? dateTime : parseLegacyDateTime(raw);
+    }
+
+    static String formatDateTime(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_TIME_FORMAT) : null;
+    }
+
+    // yyyy-MM-dd
+    static LocalDate parseIsoDate(String value) {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1
+                || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    // yyyy-MM-dd HH:mm:ss
+    static LocalDateTime parseIsoDateTime(String value) {
+        if (value.length() != 19 || value.charAt(10) != ' ' || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        LocalDate date = parseIsoDate(value.substring(0, 10));
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        int second = digits(value, 17, 19);
+        if (date == null || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return date.atTime(hour, minute, second);
+    }
+
+    static LocalDate parseLegacyDate(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        String value = raw.trim();
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value).toLocalDate();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(value, UI_DATE_FORMAT);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value, UI_DATE_TIME_FORMAT).toLocalDate();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return Instant.parse(value).atZone(ZoneId.systemDefault()).toLocalDate();
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
+    static LocalDateTime parseLegacyDateTime(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+
+        String value = raw.trim();
+
+        if (value.chars().allMatch(Character::isDigit)) {
+            try {
+                long millis = Long.parseLong(value);
+                return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (NumberFormatException ignored) {
+                // fall through to other parsers
+            }
+        }
+
+        try {
+            return Timestamp.valueOf(value).toLocalDateTime();
+        } catch (IllegalArgumentException ignored) {
+            // fall through to other parsers
+        }
+
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException ignored) {
+            // fall through to final parser
+        }
+        try {
+            return LocalDateTime.parse(value, UI_DATE_TIME_FORMAT);
+        } catch (DateTimeParseException ignored) {
+            // fall through to final parser
+        }
+        try {
+            return LocalDate.parse(value, UI_DATE_FORMAT).atStartOfDay();
+        } catch (DateTimeParseException ignored) {
+            // fall through to final parser
+        }
+
+        try {
+            return Instant.parse(value).atZone(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,243 @@
+package com.cspinventory.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Every mutation goes through one writer thread. Operations queued while a commit is running are applied
+// together in the next transaction (group commit), each inside its own savepoint so a failing operation
+// rolls back alone. Futures complete after COMMIT on a synchronous=FULL connection, i.e. once the data is
+// durable. The write lock is taken with BEGIN IMMEDIATE and retried with backoff while another process
+// holds it, instead of each caller stalling on busy_timeout.
+final class WriteQueue implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteQueue.class.getName());
+    private static final int MAX_GROUP_SIZE = 256;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final int WRITER_BUSY_TIMEOUT_MILLIS = 250;
+    private static final long BUSY_RETRY_DEADLINE_MILLIS = 30_000;
+    private static final long INITIAL_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 1_000;
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    @FunctionalInterface
+    interface Operation<T> {
+        T apply(PooledConnection connection) throws SQLException;
+    }
+
+    private record Pending<T>(Operation<T> operation, CompletableFuture<T> future) {
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+
+    private final ConnectionPool connectionPool;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong failedOperations = new AtomicLong();
+    private final AtomicLong busyRetries = new AtomicLong();
+    private volatile boolean closed;
+    // Physical connection the writer pragmas were applied to; the pool reopens it after an eviction.
+    private Connection configuredConnection;
+
+    WriteQueue(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.writerThread = new Thread(this::run, "machine-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    <T> CompletableFuture<T> submit(Operation<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new SQLException("Write queue is closed"));
+            return future;
+        }
+        Pending<T> pending = new Pending<>(operation, future);
+        queue.add(pending);
+        // close() may have drained the queue between the check and the add; whoever removes the item fails it.
+        if (closed && queue.remove(pending)) {
+            future.completeExceptionally(new SQLException("Write queue is closed"));
+        }
+        return future;
+    }
+
+    // Blocks until the operation is committed; rethrows its SQLException or RuntimeException unchanged.
+    <T> T execute(Operation<T> operation) throws SQLException {
+        if (Thread.currentThread() == writerThread) {
+            throw new IllegalStateException("Nested write on the writer thread");
+        }
+        try {
+            return submit(operation).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the write to commit", e);
+        }
+    }
+
+    WriteQueueStats stats() {
+        return new WriteQueueStats(operations.get(), commits.get(), failedOperations.get(), busyRetries.get());
+    }
+
+    private void run() {
+        List<Pending<?>> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (true) {
+            Pending<?> first;
+            try {
+                first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                // No deliberate wait: whatever queued up during the previous commit joins this one.
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP_SIZE - group.size());
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+
+            if (!group.isEmpty()) {
+                commitGroup(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<Pending<?>> group) {
+        Object[] results = new Object[group.size()];
+        Throwable[] errors = new Throwable[group.size()];
+
+        try (PooledConnection connection = connectionPool.borrow();
+             Statement statement = connection.createStatement()) {
+            if (connection.connection() != configuredConnection) {
+                statement.execute("PRAGMA synchronous = FULL");
+                statement.execute("PRAGMA busy_timeout = " + WRITER_BUSY_TIMEOUT_MILLIS);
+                configuredConnection = connection.connection();
+            }
+            beginImmediate(statement);
+            try {
+                if (group.size() == 1) {
+                    // Alone in its transaction: no savepoint needed, a failure rolls the transaction back.
+                    try {
+                        results[0] = group.get(0).operation().apply(connection);
+                    } catch (SQLException | RuntimeException e) {
+                        errors[0] = e;
+                    }
+                    statement.execute(errors[0] == null ? "COMMIT" : "ROLLBACK");
+                } else {
+                    for (int i = 0; i < group.size(); i++) {
+                        statement.execute("SAVEPOINT write_op");
+                        try {
+                            results[i] = group.get(i).operation().apply(connection);
+                            statement.execute("RELEASE write_op");
+                        } catch (SQLException | RuntimeException e) {
+                            errors[i] = e;
+                            statement.execute("ROLLBACK TO write_op");
+                            statement.execute("RELEASE write_op");
+                        }
+                    }
+                    statement.execute("COMMIT");
+                }
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(statement, e);
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Write group of " + group.size() + " operations failed", e);
+            failedOperations.addAndGet(group.size());
+            group.forEach(pending -> pending.future().completeExceptionally(e));
+            return;
+        }
+
+        commits.incrementAndGet();
+        operations.addAndGet(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            if (errors[i] != null) {
+                failedOperations.incrementAndGet();
+                group.get(i).future().completeExceptionally(errors[i]);
+            } else {
+                group.get(i).complete(results[i]);
+            }
+        }
+    }
+
+    private void beginImmediate(Statement statement) throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BUSY_RETRY_DEADLINE_MILLIS);
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                statement.execute("BEGIN IMMEDIATE");
+                return;
+            } catch (SQLException e) {
+                if (!isBusy(e) || System.nanoTime() > deadline) {
+                    throw e;
+                }
+                busyRetries.incrementAndGet();
+                try {
+                    Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private boolean isBusy(SQLException e) {
+        int primaryCode = e.getErrorCode() & 0xFF;
+        return primaryCode == SQLITE_BUSY || primaryCode == SQLITE_LOCKED;
+    }
+
+    private void rollbackQuietly(Statement statement, Exception cause) {
+        try {
+            statement.execute("ROLLBACK");
+        } catch (SQLException rollbackError) {
+            cause.addSuppressed(rollbackError);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future().completeExceptionally(new SQLException("Write queue is closed"));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.cspinventory.dao;
+
+public record WriteQueueStats(long operations, long commits, long failedOperations, long busyRetries) {
+
+    public double operationsPerCommit() {
+        return commits == 0 ? 0.0 : (double) operations / commits;
+    }
+}
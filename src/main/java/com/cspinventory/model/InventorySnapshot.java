@@ -0,0 +1,196 @@
+package com.cspinventory.model;
+
+import com.cspinventory.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Immutable view of the whole inventory, in the order of the table (NomReseau COLLATE NOCASE, then id)
+// and indexed by id and by case-folded NomReseau. Changes produce a new snapshot with the next version;
+// holders of an older one keep a consistent view without locking.
+public final class InventorySnapshot {
+
+    // SQLite NOCASE only folds ASCII letters.
+    public static final Comparator<MachineSnapshot> ORDER = Comparator
+            .comparing(MachineSnapshot::nomReseau, InventorySnapshot::compareNoCase)
+            .thenComparingLong(MachineSnapshot::id);
+
+    // Above this many changed rows a sort is cheaper than one binary-search insert per row.
+    private static final int RESORT_THRESHOLD = 64;
+
+    private final long version;
+    private final List<MachineSnapshot> machines;
+    private final Map<Long, MachineSnapshot> byId;
+    private final Map<String, Long> idsByNomReseau;
+    // Every holder of a name held by several rows, possible only in databases that predate the case-insensitive
+    // unique index.
+    private final Map<String, Set<Long>> sharedNomReseaux;
+
+    private InventorySnapshot(long version, List<MachineSnapshot> sortedMachines, Map<Long, MachineSnapshot> byId,
+                              Map<String, Long> idsByNomReseau, Map<String, Set<Long>> sharedNomReseaux) {
+        this.version = version;
+        this.machines = Collections.unmodifiableList(sortedMachines);
+        this.byId = Collections.unmodifiableMap(byId);
+        this.idsByNomReseau = Collections.unmodifiableMap(idsByNomReseau);
+        this.sharedNomReseaux = Collections.unmodifiableMap(sharedNomReseaux);
+    }
+
+    public static InventorySnapshot of(long version, Collection<MachineSnapshot> machines) {
+        List<MachineSnapshot> sorted = new ArrayList<>(machines);
+        sorted.sort(ORDER);
+        Map<Long, MachineSnapshot> byId = new HashMap<>(sorted.size() * 2);
+        Map<String, Long> names = new HashMap<>(sorted.size() * 2);
+        Map<String, Set<Long>> shared = new HashMap<>();
+        for (MachineSnapshot machine : sorted) {
+            byId.put(machine.id(), machine);
+            addName(names, shared, TextFolding.foldNoCase(machine.nomReseau()), machine.id());
+        }
+        return new InventorySnapshot(version, sorted, byId, names, shared);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public List<MachineSnapshot> machines() {
+        return machines;
+    }
+
+    public Stream<MachineSnapshot> stream() {
+        return machines.stream();
+    }
+
+    public int size() {
+        return machines.size();
+    }
+
+    public Optional<MachineSnapshot> findById(long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    // Same rule as the idx_machines_nomreseau_nocase unique index: only ASCII letters are folded.
+    public boolean isNomReseauTaken(String nomReseau, Long excludeId) {
+        String key = TextFolding.foldNoCase(nomReseau.trim());
+        Long ownerId = idsByNomReseau.get(key);
+        if (ownerId == null) {
+            return false;
+        }
+        return sharedNomReseaux.containsKey(key) || !ownerId.equals(excludeId);
+    }
+
+    // Same contract as MachineDao.findPage: the rows after (nomReseau, id), or from the start when nomReseau is null.
+    public List<MachineSnapshot> pageAfter(String nomReseau, Long id, int limit) {
+        int from = nomReseau == null ? 0 : indexAfter(nomReseau, id);
+        return List.copyOf(machines.subList(from, Math.min(machines.size(), from + limit)));
+    }
+
+    // Next version with the given rows inserted or replaced by id and the removed ids dropped. The indexes are
+    // copied and patched for the changed ids only; the names of unchanged rows are not folded again.
+    public InventorySnapshot withChanges(Collection<MachineSnapshot> changed, Collection<Long> removedIds) {
+        Set<Long> dropped = new HashSet<>(removedIds);
+        changed.forEach(machine -> dropped.add(machine.id()));
+        Map<Long, MachineSnapshot> nextById = new HashMap<>(byId);
+        Map<String, Long> names = new HashMap<>(idsByNomReseau);
+        Map<String, Set<Long>> shared = new HashMap<>(sharedNomReseaux);
+        for (Long id : dropped) {
+            MachineSnapshot previous = nextById.remove(id);
+            if (previous != null) {
+                removeName(names, shared, TextFolding.foldNoCase(previous.nomReseau()), id);
+            }
+        }
+        for (MachineSnapshot machine : changed) {
+            nextById.put(machine.id(), machine);
+            addName(names, shared, TextFolding.foldNoCase(machine.nomReseau()), machine.id());
+        }
+
+        List<MachineSnapshot> rows = new ArrayList<>(machines.size() + changed.size());
+        for (MachineSnapshot machine : machines) {
+            if (!dropped.contains(machine.id())) {
+                rows.add(machine);
+            }
+        }
+        if (changed.size() > RESORT_THRESHOLD) {
+            rows.addAll(changed);
+            rows.sort(ORDER);
+        } else {
+            for (MachineSnapshot machine : changed) {
+                int index = Collections.binarySearch(rows, machine, ORDER);
+                rows.add(index < 0 ? -index - 1 : index, machine);
+            }
+        }
+        return new InventorySnapshot(version + 1, rows, nextById, names, shared);
+    }
+
+    // The holder sets in shared are never modified once published; a change replaces them.
+    private static void addName(Map<String, Long> names, Map<String, Set<Long>> shared, String key, long id) {
+        Long ownerId = names.putIfAbsent(key, id);
+        if (ownerId == null || ownerId == id) {
+            return;
+        }
+        Set<Long> holders = new HashSet<>(shared.getOrDefault(key, Set.of(ownerId)));
+        holders.add(id);
+        shared.put(key, holders);
+    }
+
+    private static void removeName(Map<String, Long> names, Map<String, Set<Long>> shared, String key, long id) {
+        Set<Long> holders = shared.get(key);
+        if (holders == null) {
+            names.remove(key, id);
+            return;
+        }
+        Set<Long> remaining = new HashSet<>(holders);
+        remaining.remove(id);
+        if (remaining.size() > 1) {
+            shared.put(key, remaining);
+        } else {
+            shared.remove(key);
+        }
+        if (names.get(key) == id) {
+            names.put(key, remaining.iterator().next());
+        }
+    }
+
+    // A null id sorts before every row of that name.
+    private int indexAfter(String nomReseau, Long id) {
+        int low = 0;
+        int high = machines.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            MachineSnapshot row = machines.get(mid);
+            int cmp = compareNoCase(row.nomReseau(), nomReseau);
+            if (cmp == 0) {
+                cmp = id == null ? 1 : Long.compare(row.id(), id);
+            }
+            if (cmp > 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int compareNoCase(String left, String right) {
+        int length = Math.min(left.length(), right.length());
+        for (int i = 0; i < length; i++) {
+            int diff = foldAscii(left.charAt(i)) - foldAscii(right.charAt(i));
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return left.length() - right.length();
+    }
+
+    private static char foldAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,77 @@
+package com.cspinventory.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Read-only copy of a stored machine; a Machine is only needed to edit one.
+public record MachineSnapshot(
+        long id,
+        String nomReseau,
+        String serieNmb,
+        String model,
+        String utilisateur,
+        String emplacement,
+        String site,
+        String lieu,
+        String ipv4RJ45,
+        String ipv4Wifi,
+        String macEthernet,
+        String macWifi,
+        String vlan,
+        boolean garantie,
+        String statut,
+        String note,
+        LocalDate purchaseDate,
+        LocalDate dateMiseEnService,
+        LocalDateTime dateModif) {
+
+    public static MachineSnapshot of(Machine machine) {
+        if (machine.getId() == null) {
+            throw new IllegalArgumentException("Machine non enregistree");
+        }
+        return new MachineSnapshot(
+                machine.getId(),
+                machine.getNomReseau(),
+                machine.getSerieNmb(),
+                machine.getModel(),
+                machine.getUtilisateur(),
+                machine.getEmplacement(),
+                machine.getSite(),
+                machine.getLieu(),
+                machine.getIpv4RJ45(),
+                machine.getIpv4Wifi(),
+                machine.getMacEthernet(),
+                machine.getMacWifi(),
+                machine.getVlan(),
+                machine.isGarantie(),
+                machine.getStatut(),
+                machine.getNote(),
+                machine.getPurchaseDate(),
+                machine.getDateMiseEnService(),
+                machine.getDateModif());
+    }
+
+    public Machine toMachine() {
+        Machine machine = new Machine();
+        machine.setId(id);
+        machine.setNomReseau(nomReseau);
+        machine.setSerieNmb(serieNmb);
+        machine.setModel(model);
+        machine.setUtilisateur(utilisateur);
+        machine.setEmplacement(emplacement);
+        machine.setSite(site);
+        machine.setLieu(lieu);
+        machine.setIpv4RJ45(ipv4RJ45);
+        machine.setIpv4Wifi(ipv4Wifi);
+        machine.setMacEthernet(macEthernet);
+        machine.setMacWifi(macWifi);
+        machine.setVlan(vlan);
+        machine.setGarantie(garantie);
+        machine.setStatut(statut);
+        machine.setNote(note);
+        machine.setPurchaseDate(purchaseDate);
+        machine.setDateMiseEnService(dateMiseEnService);
+        machine.setDateModif(dateModif);
+        return machine;
+    }
+}
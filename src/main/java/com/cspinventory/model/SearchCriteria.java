@@ -0,0 +1,35 @@
+package com.cspinventory.model;
+
+public record SearchCriteria(
+        String text,
+        String site,
+        String lieu,
+        Boolean garantie,
+        int limit
+) {
+
+    public SearchCriteria {
+        text = blankToNull(text);
+        site = blankToNull(site);
+        lieu = blankToNull(lieu);
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be >= 1");
+        }
+    }
+
+    public static SearchCriteria ofText(String text, int limit) {
+        return new SearchCriteria(text, null, null, null, limit);
+    }
+
+    public boolean hasFieldFilters() {
+        return site != null || lieu != null || garantie != null;
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,336 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typo-tolerant lookup of the folded NomReseau and SerieNmb values, for "did you mean" when a search finds nothing.
+// The values are kept sorted and walked as a trie: each prefix gets one row of the Levenshtein table against the
+// query (the table form of a Levenshtein automaton), rows are reused across values sharing a prefix, and once
+// every cell of a row exceeds the allowed distance the block of values starting with that prefix is skipped.
+// A BK-tree was measured first: serials and host names of the same length and prefix are all within a few edits
+// of each other, so it ended up comparing most of the values. The walk is bound by memory reads rather than by the
+// table, so the sorted values are packed in one char array next to the length of the prefix each one shares with
+// the next, and skipping a block is a sequential scan of those lengths.
+public final class FuzzyIndex {
+
+    private static final int MIN_LENGTH = 3;
+
+    // How a folded value was last typed, and how many machines hold it.
+    private static final class Term {
+        String display;
+        int holders;
+    }
+
+    // A value within reach of the query and its edit distance to it.
+    public record Suggestion(String value, int distance) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Term> byValue = new HashMap<>();
+    private final Map<Long, String[]> docTerms = new HashMap<>();
+    // Sorted values: value i is chars[starts[i]] to chars[starts[i + 1]].
+    private char[] chars = new char[1024];
+    private int[] starts = new int[129];
+    private int[] sharedWithNext = new int[128];
+    private int size;
+
+    public void rebuild(Collection<MachineSnapshot> machines) {
+        lock.writeLock().lock();
+        try {
+            byValue.clear();
+            docTerms.clear();
+            for (MachineSnapshot machine : machines) {
+                String[] terms = terms(machine);
+                for (int i = 0; i < terms.length; i++) {
+                    if (terms[i] != null) {
+                        Term term = byValue.computeIfAbsent(terms[i], value -> new Term());
+                        term.display = display(machine, i);
+                        term.holders++;
+                    }
+                }
+                docTerms.put(machine.id(), terms);
+            }
+            String[] values = byValue.keySet().toArray(String[]::new);
+            Arrays.sort(values);
+            int total = Arrays.stream(values).mapToInt(String::length).sum();
+            chars = new char[Math.max(1024, total + total / 8)];
+            starts = new int[Math.max(129, values.length + values.length / 8 + 1)];
+            sharedWithNext = new int[starts.length - 1];
+            size = 0;
+            for (String value : values) {
+                value.getChars(0, value.length(), chars, starts[size]);
+                starts[size + 1] = starts[size] + value.length();
+                size++;
+            }
+            for (int i = 0; i + 1 < size; i++) {
+                sharedWithNext[i] = commonPrefix(i, i + 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(MachineSnapshot machine) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(machine.id());
+            String[] terms = terms(machine);
+            for (int i = 0; i < terms.length; i++) {
+                if (terms[i] == null) {
+                    continue;
+                }
+                Term term = byValue.get(terms[i]);
+                if (term == null) {
+                    term = new Term();
+                    byValue.put(terms[i], term);
+                    insertSorted(terms[i]);
+                }
+                term.display = display(machine, i);
+                term.holders++;
+            }
+            docTerms.put(machine.id(), terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Values within the edit distance the query length allows (1 up to 5 characters, 2 above), nearest first.
+    // Queries shorter than 3 characters get none: every short value would be a suggestion.
+    public List<Suggestion> suggest(String text, int limit) {
+        String query = text == null ? "" : TextFolding.fold(text).trim();
+        if (query.length() < MIN_LENGTH) {
+            return List.of();
+        }
+        int maxDistance = query.length() <= 5 ? 1 : 2;
+        lock.readLock().lock();
+        try {
+            // Distance and index packed in one long: sorting them orders by distance, then by value.
+            long[] hits = walk(query.toCharArray(), maxDistance);
+            Arrays.sort(hits);
+            List<Suggestion> found = new ArrayList<>(Math.min(limit, hits.length));
+            for (int i = 0; i < hits.length && i < limit; i++) {
+                String display = byValue.get(valueAt((int) hits[i])).display;
+                found.add(new Suggestion(display, (int) (hits[i] >>> 32)));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] walk(char[] query, int maxDistance) {
+        long[] hits = new long[16];
+        int count = 0;
+        // rows[d] is the Levenshtein row of the first d characters of the current value against the query.
+        int[][] rows = new int[1][query.length + 1];
+        for (int i = 0; i <= query.length; i++) {
+            rows[0][i] = i;
+        }
+        // Rows are valid for the first validRows characters of the last visited value, which shares the first
+        // shared characters with the current one.
+        int validRows = 0;
+        int shared = 0;
+        int index = 0;
+        while (index < size) {
+            int start = starts[index];
+            int length = starts[index + 1] - start;
+            if (rows.length <= length) {
+                rows = Arrays.copyOf(rows, length + 1);
+            }
+            int depth = Math.min(validRows, shared);
+            boolean dead = false;
+            while (depth < length && !dead) {
+                depth++;
+                dead = fillRow(rows, depth, chars[start + depth - 1], query, maxDistance) > maxDistance;
+            }
+            validRows = depth;
+            if (dead) {
+                // The next values sharing at least depth characters with this one all start with the dead prefix.
+                while (index + 1 < size && sharedWithNext[index] >= depth) {
+                    index++;
+                }
+                shared = index + 1 < size ? sharedWithNext[index] : 0;
+                index++;
+                continue;
+            }
+            // The last cell is only computed when the lengths are close enough for a match.
+            if (Math.abs(length - query.length) <= maxDistance && rows[depth][query.length] <= maxDistance) {
+                if (count == hits.length) {
+                    hits = Arrays.copyOf(hits, count * 2);
+                }
+                hits[count++] = ((long) rows[depth][query.length] << 32) | index;
+            }
+            shared = index + 1 < size ? sharedWithNext[index] : 0;
+            index++;
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    // Fills rows[depth] from rows[depth - 1] and returns its smallest cell. A cell i is at least |depth - i|, so
+    // only the band of cells within maxDistance of the diagonal is computed; cells are capped at maxDistance + 1
+    // and the cells bordering the band hold that cap for the next row.
+    private static int fillRow(int[][] rows, int depth, char c, char[] query, int maxDistance) {
+        int[] above = rows[depth - 1];
+        int[] row = rows[depth];
+        if (row == null) {
+            row = new int[above.length];
+            rows[depth] = row;
+        }
+        int cap = maxDistance + 1;
+        int low = Math.max(1, depth - maxDistance);
+        int high = Math.min(query.length, depth + maxDistance);
+        row[0] = Math.min(depth, cap);
+        row[low - 1] = low > 1 ? cap : row[0];
+        int min = row[low - 1];
+        for (int i = low; i <= high; i++) {
+            int cost = query[i - 1] == c ? 0 : 1;
+            int cell = Math.min(Math.min(row[i - 1], above[i]) + 1, above[i - 1] + cost);
+            row[i] = Math.min(cell, cap);
+            min = Math.min(min, row[i]);
+        }
+        if (high < query.length) {
+            row[high + 1] = cap;
+        }
+        return min;
+    }
+
+    private int commonPrefix(int left, int right) {
+        int a = starts[left];
+        int b = starts[right];
+        int length = Math.min(starts[left + 1] - a, starts[right + 1] - b);
+        int i = 0;
+        while (i < length && chars[a + i] == chars[b + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private String valueAt(int index) {
+        return new String(chars, starts[index], starts[index + 1] - starts[index]);
+    }
+
+    private void removeLocked(long id) {
+        String[] terms = docTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String value : terms) {
+            if (value != null && --byValue.get(value).holders == 0) {
+                byValue.remove(value);
+                removeSorted(position(value));
+            }
+        }
+    }
+
+    private void insertSorted(String value) {
+        int at = -position(value) - 1;
+        int length = value.length();
+        int end = starts[size];
+        if (end + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, end + length));
+        }
+        if (size + 2 > starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            sharedWithNext = Arrays.copyOf(sharedWithNext, starts.length - 1);
+        }
+        int offset = starts[at];
+        System.arraycopy(chars, offset, chars, offset + length, end - offset);
+        value.getChars(0, length, chars, offset);
+        System.arraycopy(starts, at, starts, at + 1, size + 1 - at);
+        for (int i = at + 1; i <= size + 1; i++) {
+            starts[i] += length;
+        }
+        System.arraycopy(sharedWithNext, at, sharedWithNext, at + 1, size - at);
+        size++;
+        if (at > 0) {
+            sharedWithNext[at - 1] = commonPrefix(at - 1, at);
+        }
+        if (at + 1 < size) {
+            sharedWithNext[at] = commonPrefix(at, at + 1);
+        }
+    }
+
+    private void removeSorted(int at) {
+        int offset = starts[at];
+        int length = starts[at + 1] - offset;
+        System.arraycopy(chars, offset + length, chars, offset, starts[size] - offset - length);
+        System.arraycopy(starts, at + 1, starts, at, size - at);
+        for (int i = at; i < size; i++) {
+            starts[i] -= length;
+        }
+        System.arraycopy(sharedWithNext, at + 1, sharedWithNext, at, size - at - 1);
+        size--;
+        if (at > 0 && at < size) {
+            sharedWithNext[at - 1] = commonPrefix(at - 1, at);
+        }
+    }
+
+    // Binary search by value: the index when present, -(insertion point) - 1 otherwise.
+    private int position(String value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, value);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    // Same order as String.compareTo.
+    private int compare(int index, String value) {
+        int start = starts[index];
+        int length = starts[index + 1] - start;
+        int common = Math.min(length, value.length());
+        for (int i = 0; i < common; i++) {
+            int diff = chars[start + i] - value.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - value.length();
+    }
+
+    // The folded NomReseau and SerieNmb of the machine; null for a missing or too short one, or a serial equal
+    // to the name.
+    private static String[] terms(MachineSnapshot machine) {
+        String name = term(machine.nomReseau());
+        String serie = term(machine.serieNmb());
+        return new String[] {name, serie != null && serie.equals(name) ? null : serie};
+    }
+
+    private static String display(MachineSnapshot machine, int field) {
+        return (field == 0 ? machine.nomReseau() : machine.serieNmb()).trim();
+    }
+
+    private static String term(String value) {
+        if (value == null) {
+            return null;
+        }
+        String term = TextFolding.fold(value).trim();
+        return term.length() < MIN_LENGTH ? null : term;
+    }
+}
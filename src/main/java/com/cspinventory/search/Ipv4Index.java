@@ -0,0 +1,86 @@
+package com.cspinventory.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// (address, doc ordinal) pairs packed into one sorted long[]: the unsigned address in the high half, the ordinal in
+// the low half, sign bit flipped so signed order is address order. A range lookup is two binary searches;
+// single entries are inserted and removed in place, a rebuild is one sort.
+final class Ipv4Index {
+
+    private long[] keys = new long[1024];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // Appends without keeping the order; call sort() once done.
+    void append(long address, int doc) {
+        ensureCapacity();
+        keys[size++] = key(address, doc);
+    }
+
+    void sort() {
+        Arrays.sort(keys, 0, size);
+    }
+
+    void add(long address, int doc) {
+        long key = key(address, doc);
+        int at = Arrays.binarySearch(keys, 0, size, key);
+        if (at >= 0) {
+            return;
+        }
+        int insertAt = -at - 1;
+        ensureCapacity();
+        System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+        keys[insertAt] = key;
+        size++;
+    }
+
+    void remove(long address, int doc) {
+        int at = Arrays.binarySearch(keys, 0, size, key(address, doc));
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+        size--;
+    }
+
+    int count(Ipv4Range range) {
+        return end(range) - start(range);
+    }
+
+    // Ordinals of the machines with an address in the range, in address order; a machine with both addresses in
+    // the range is reported twice.
+    void forEach(Ipv4Range range, IntConsumer action) {
+        int end = end(range);
+        for (int i = start(range); i < end; i++) {
+            action.accept((int) keys[i]);
+        }
+    }
+
+    private int start(Ipv4Range range) {
+        int at = Arrays.binarySearch(keys, 0, size, key(range.first(), 0));
+        return at >= 0 ? at : -at - 1;
+    }
+
+    private int end(Ipv4Range range) {
+        int at = Arrays.binarySearch(keys, 0, size, key(range.last(), -1));
+        return at >= 0 ? at + 1 : -at - 1;
+    }
+
+    private void ensureCapacity() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+    }
+
+    private static long key(long address, int doc) {
+        return ((address << 32) | (doc & 0xFFFF_FFFFL)) ^ Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,65 @@
+package com.cspinventory.search;
+
+import com.cspinventory.util.NetworkAddresses;
+
+import java.util.Optional;
+
+// Inclusive range of IPv4 addresses as unsigned 32-bit values. Written as 10.12.4.0/22, 10.0.0.1-10.0.0.50
+// or a single address.
+public record Ipv4Range(long first, long last) {
+
+    public Ipv4Range {
+        if (first < 0 || last > 0xFFFF_FFFFL || first > last) {
+            throw new IllegalArgumentException("Plage IPv4 invalide");
+        }
+    }
+
+    public static Optional<Ipv4Range> parse(String text) {
+        String value = text == null ? "" : text.trim();
+        int slash = value.indexOf('/');
+        if (slash >= 0) {
+            long address = NetworkAddresses.parseIPv4(value.substring(0, slash));
+            int bits = prefixLength(value.substring(slash + 1));
+            if (address < 0 || bits < 0) {
+                return Optional.empty();
+            }
+            long hostMask = 0xFFFF_FFFFL >>> bits;
+            return Optional.of(new Ipv4Range(address & ~hostMask, address | hostMask));
+        }
+        int dash = value.indexOf('-');
+        if (dash >= 0) {
+            long first = NetworkAddresses.parseIPv4(value.substring(0, dash));
+            long last = NetworkAddresses.parseIPv4(value.substring(dash + 1));
+            if (first < 0 || last < 0 || first > last) {
+                return Optional.empty();
+            }
+            return Optional.of(new Ipv4Range(first, last));
+        }
+        long address = NetworkAddresses.parseIPv4(value);
+        return address < 0 ? Optional.empty() : Optional.of(new Ipv4Range(address, address));
+    }
+
+    public boolean contains(String address) {
+        long packed = NetworkAddresses.parseIPv4(address);
+        return packed >= first && packed <= last;
+    }
+
+    public boolean contains(Ipv4Range other) {
+        return other.first >= first && other.last <= last;
+    }
+
+    @Override
+    public String toString() {
+        return first == last
+                ? NetworkAddresses.formatIPv4(first)
+                : NetworkAddresses.formatIPv4(first) + "-" + NetworkAddresses.formatIPv4(last);
+    }
+
+    private static int prefixLength(String text) {
+        if (text.isEmpty() || text.length() > 2 || !text.chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        int bits = Integer.parseInt(text);
+        return bits <= 32 ? bits : -1;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cspinventory.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// MAC values and doc ordinals in two primitive arrays sorted by MAC. A 48-bit MAC and an ordinal don't fit one
+// long as in Ipv4Index, hence the parallel arrays. An exact lookup or a vendor prefix is two binary searches.
+final class MacIndex {
+
+    private long[] macs = new long[1024];
+    private int[] docs = new int[1024];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // Appends without keeping the order; call sort() once done.
+    void append(long mac, int doc) {
+        ensureCapacity();
+        macs[size] = mac;
+        docs[size] = doc;
+        size++;
+    }
+
+    void sort() {
+        sort(0, size - 1);
+    }
+
+    void add(long mac, int doc) {
+        int insertAt = lowerBound(mac);
+        ensureCapacity();
+        System.arraycopy(macs, insertAt, macs, insertAt + 1, size - insertAt);
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+        macs[insertAt] = mac;
+        docs[insertAt] = doc;
+        size++;
+    }
+
+    void remove(long mac, int doc) {
+        for (int i = lowerBound(mac); i < size && macs[i] == mac; i++) {
+            if (docs[i] == doc) {
+                System.arraycopy(macs, i + 1, macs, i, size - i - 1);
+                System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+                size--;
+                return;
+            }
+        }
+    }
+
+    int count(MacRange range) {
+        return lowerBound(range.last() + 1) - lowerBound(range.first());
+    }
+
+    // Ordinals of the machines with a MAC in the range; a machine with both MACs in it is reported twice.
+    void forEach(MacRange range, IntConsumer action) {
+        int end = lowerBound(range.last() + 1);
+        for (int i = lowerBound(range.first()); i < end; i++) {
+            action.accept(docs[i]);
+        }
+    }
+
+    // First entry with a MAC >= the given one.
+    private int lowerBound(long mac) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (macs[middle] < mac) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void sort(int from, int to) {
+        while (from < to) {
+            long pivot = macs[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (macs[i] < pivot) {
+                    i++;
+                }
+                while (macs[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // Recurse into the smaller side to bound the stack depth.
+            if (j - from < to - i) {
+                sort(from, j);
+                from = i;
+            } else {
+                sort(i, to);
+                to = j;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        long mac = macs[i];
+        macs[i] = macs[j];
+        macs[j] = mac;
+        int doc = docs[i];
+        docs[i] = docs[j];
+        docs[j] = doc;
+    }
+
+    private void ensureCapacity() {
+        if (size == macs.length) {
+            macs = Arrays.copyOf(macs, size * 2);
+            docs = Arrays.copyOf(docs, size * 2);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.cspinventory.search;
+
+import com.cspinventory.util.NetworkAddresses;
+
+import java.util.Optional;
+
+// Inclusive range of 48-bit MAC values: one address, or every address of a vendor prefix (OUI).
+public record MacRange(long first, long last) {
+
+    private static final long HOST_BITS = 0xFF_FFFFL;
+
+    public MacRange {
+        if (first < 0 || last > 0xFFFF_FFFF_FFFFL || first > last) {
+            throw new IllegalArgumentException("Adresse MAC invalide");
+        }
+    }
+
+    // A full MAC in any notation, or its first three bytes optionally followed by '*' for the whole vendor prefix.
+    public static Optional<MacRange> parse(String text) {
+        String value = text == null ? "" : text.trim();
+        long mac = NetworkAddresses.parseMac(value);
+        if (mac >= 0) {
+            return Optional.of(new MacRange(mac, mac));
+        }
+        long oui = NetworkAddresses.parseOui(value.endsWith("*") ? value.substring(0, value.length() - 1) : value);
+        return oui < 0 ? Optional.empty() : Optional.of(new MacRange(oui << 24, (oui << 24) | HOST_BITS));
+    }
+
+    public boolean contains(String mac) {
+        long value = NetworkAddresses.parseMac(mac);
+        return value >= first && value <= last;
+    }
+
+    public boolean contains(MacRange other) {
+        return other.first >= first && other.last <= last;
+    }
+
+    @Override
+    public String toString() {
+        return first == last
+                ? NetworkAddresses.formatMac(first)
+                : NetworkAddresses.formatMac(first).substring(0, 8) + ":*";
+    }
+}
@@ -0,0 +1,35 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+
+import java.util.Objects;
+
+// The values a quick search looks into, as text; null for the empty fields.
+public final class MachineSearchFields {
+
+    private MachineSearchFields() {
+    }
+
+    public static String[] of(MachineSnapshot machine) {
+        return new String[] {
+                machine.nomReseau(),
+                machine.serieNmb(),
+                machine.model(),
+                machine.utilisateur(),
+                machine.emplacement(),
+                machine.site(),
+                machine.lieu(),
+                machine.ipv4RJ45(),
+                machine.ipv4Wifi(),
+                machine.macEthernet(),
+                machine.macWifi(),
+                machine.vlan(),
+                machine.statut(),
+                machine.note(),
+                Objects.toString(machine.purchaseDate(), null),
+                Objects.toString(machine.dateMiseEnService(), null),
+                Objects.toString(machine.dateModif(), null),
+                Boolean.toString(machine.garantie())
+        };
+    }
+}
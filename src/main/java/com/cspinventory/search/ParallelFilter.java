@@ -0,0 +1,72 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+// Tests machines in chunks on the common ForkJoinPool; the calling thread takes part in the work. A run checks
+// its cancellation flag between chunks so a superseded search stops early instead of finishing for nothing.
+final class ParallelFilter {
+
+    // Below this many machines a chunk is tested on the calling thread.
+    static final int CHUNK_SIZE = 8_192;
+
+    private ParallelFilter() {
+    }
+
+    // Ids of the machines at positions [0, size) passing the test, in no particular order. Null machines are skipped.
+    static long[] filter(int size, IntFunction<MachineSnapshot> machineAt, Predicate<MachineSnapshot> test,
+                         BooleanSupplier cancelled) {
+        Chunk all = new Chunk(0, size, machineAt, test, cancelled);
+        return size <= CHUNK_SIZE ? all.compute() : ForkJoinPool.commonPool().invoke(all);
+    }
+
+    private static final class Chunk extends RecursiveTask<long[]> {
+        private final int from;
+        private final int to;
+        private final IntFunction<MachineSnapshot> machineAt;
+        private final Predicate<MachineSnapshot> test;
+        private final BooleanSupplier cancelled;
+
+        Chunk(int from, int to, IntFunction<MachineSnapshot> machineAt, Predicate<MachineSnapshot> test,
+              BooleanSupplier cancelled) {
+            this.from = from;
+            this.to = to;
+            this.machineAt = machineAt;
+            this.test = test;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Recherche remplacee");
+            }
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                Chunk right = new Chunk(middle, to, machineAt, test, cancelled);
+                right.fork();
+                long[] left = new Chunk(from, middle, machineAt, test, cancelled).compute();
+                long[] rightIds = right.join();
+                long[] ids = Arrays.copyOf(left, left.length + rightIds.length);
+                System.arraycopy(rightIds, 0, ids, left.length, rightIds.length);
+                return ids;
+            }
+            long[] ids = new long[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                MachineSnapshot machine = machineAt.apply(i);
+                if (machine != null && test.test(machine)) {
+                    ids[count++] = machine.id();
+                }
+            }
+            return Arrays.copyOf(ids, count);
+        }
+    }
+}
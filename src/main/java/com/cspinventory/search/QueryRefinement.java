@@ -0,0 +1,46 @@
+package com.cspinventory.search;
+
+// Conservative containment between queries: true only when every machine matching the query also matches the
+// previous one, so the previous matches can be filtered instead of searching again. False means "don't know".
+final class QueryRefinement {
+
+    private QueryRefinement() {
+    }
+
+    static boolean narrows(SearchQuery query, SearchQuery previous) {
+        if (query.equals(previous) || previous instanceof SearchQuery.All) {
+            return true;
+        }
+        if (previous instanceof SearchQuery.And and) {
+            return and.terms().stream().allMatch(term -> narrows(query, term));
+        }
+        if (query instanceof SearchQuery.Or or) {
+            return or.terms().stream().allMatch(term -> narrows(term, previous));
+        }
+        if (query instanceof SearchQuery.And and) {
+            return and.terms().stream().anyMatch(term -> narrows(term, previous));
+        }
+        if (previous instanceof SearchQuery.Or or) {
+            return or.terms().stream().anyMatch(term -> narrows(query, term));
+        }
+        return switch (previous) {
+            case SearchQuery.Text text -> switch (query) {
+                case SearchQuery.Text longer -> longer.needle().contains(text.needle());
+                // Field values are among the searched fields, so a literal holding the word implies it.
+                case SearchQuery.Field field -> field.pattern().literals().stream()
+                        .anyMatch(literal -> literal.contains(text.needle()));
+                default -> false;
+            };
+            // A wildcard of the previous pattern matching the new pattern's text covers whatever it stands for.
+            case SearchQuery.Field field -> query instanceof SearchQuery.Field narrower
+                    && narrower.field() == field.field()
+                    && field.pattern().matches(narrower.pattern().toString());
+            case SearchQuery.Ipv4 range -> query instanceof SearchQuery.Ipv4 narrower
+                    && range.range().contains(narrower.range());
+            case SearchQuery.Mac range -> query instanceof SearchQuery.Mac narrower
+                    && range.range().contains(narrower.range());
+            case SearchQuery.Not not -> query instanceof SearchQuery.Not negated && narrows(not.term(), negated.term());
+            default -> false;
+        };
+    }
+}
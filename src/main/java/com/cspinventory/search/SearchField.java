@@ -0,0 +1,54 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+// Fields a query can target with "name:value". Indexed fields have few distinct values and a value index.
+public enum SearchField {
+    NOM_RESEAU(false, m -> new String[] {m.nomReseau()}, "nom", "nomreseau"),
+    SERIE(false, m -> new String[] {m.serieNmb()}, "serie"),
+    MODEL(true, m -> new String[] {m.model()}, "model", "modele"),
+    UTILISATEUR(false, m -> new String[] {m.utilisateur()}, "user", "utilisateur"),
+    EMPLACEMENT(false, m -> new String[] {m.emplacement()}, "emplacement"),
+    SITE(true, m -> new String[] {m.site()}, "site"),
+    LIEU(true, m -> new String[] {m.lieu()}, "lieu"),
+    IP(false, m -> new String[] {m.ipv4RJ45(), m.ipv4Wifi()}, "ip"),
+    MAC(false, m -> new String[] {m.macEthernet(), m.macWifi()}, "mac"),
+    VLAN(true, m -> new String[] {m.vlan()}, "vlan"),
+    STATUT(true, m -> new String[] {m.statut()}, "statut"),
+    NOTE(false, m -> new String[] {m.note()}, "note"),
+    GARANTIE(true, m -> new String[] {Boolean.toString(m.garantie())}, "garantie");
+
+    private final boolean indexed;
+    private final Function<MachineSnapshot, String[]> values;
+    private final String[] names;
+
+    SearchField(boolean indexed, Function<MachineSnapshot, String[]> values, String... names) {
+        this.indexed = indexed;
+        this.values = values;
+        this.names = names;
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    // Raw values of the field; null entries for empty ones.
+    public String[] values(MachineSnapshot machine) {
+        return values.apply(machine);
+    }
+
+    public static SearchField byName(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        for (SearchField field : values()) {
+            for (String candidate : field.names) {
+                if (candidate.equals(key)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+}
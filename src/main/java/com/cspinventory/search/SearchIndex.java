@@ -0,0 +1,425 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.InventorySnapshot;
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.util.NetworkAddresses;
+import com.cspinventory.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+// Answers SearchQuery against an InventorySnapshot. Indexed fields (site, lieu, statut...) keep a value to
+// machines map, IPv4 ranges and MAC addresses or prefixes sorted arrays of their numeric values, bare words go
+// through the trigram index, and other field terms use the trigram index on their literal parts as a pre-filter.
+// Words, indexed fields, IPv4 ranges and MACs, and any AND/OR/NOT of them, are answered by the indexes alone;
+// otherwise only the machines they let through are tested against the full query, and a query no index can narrow
+// (a short glob on a free-form field) tests every machine.
+public final class SearchIndex {
+
+    private static final SearchField[] INDEXED = Arrays.stream(SearchField.values())
+            .filter(SearchField::isIndexed)
+            .toArray(SearchField[]::new);
+
+    private final TrigramIndex text = new TrigramIndex();
+    private final FuzzyIndex fuzzy = new FuzzyIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<SearchField, Map<String, IntList>> fieldDocs = new EnumMap<>(SearchField.class);
+    private final Ipv4Index addresses = new Ipv4Index();
+    private final MacIndex macs = new MacIndex();
+
+    // Indexed machines: ordinal to id, to the folded values of its indexed fields and to its parsed IPv4 and MAC
+    // addresses (-1 when absent or invalid).
+    private final Map<Long, Integer> docOrdinals = new HashMap<>();
+    private long[] docIds = new long[1024];
+    private String[][] docKeys = new String[1024][];
+    private long[][] docAddresses = new long[1024][];
+    private long[][] docMacs = new long[1024][];
+    private final IntList freeDocs = new IntList();
+
+    public SearchIndex() {
+        for (SearchField field : INDEXED) {
+            fieldDocs.put(field, new HashMap<>());
+        }
+    }
+
+    public void rebuild(Collection<MachineSnapshot> machines) {
+        text.rebuild(machines);
+        fuzzy.rebuild(machines);
+        lock.writeLock().lock();
+        try {
+            fieldDocs.values().forEach(Map::clear);
+            addresses.clear();
+            macs.clear();
+            docOrdinals.clear();
+            Arrays.fill(docKeys, null);
+            Arrays.fill(docAddresses, null);
+            Arrays.fill(docMacs, null);
+            freeDocs.clear();
+            for (MachineSnapshot machine : machines) {
+                putLocked(machine, true);
+            }
+            addresses.sort();
+            macs.sort();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(MachineSnapshot machine) {
+        text.put(machine);
+        fuzzy.put(machine);
+        lock.writeLock().lock();
+        try {
+            putLocked(machine, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        text.remove(id);
+        fuzzy.remove(id);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return text.size();
+    }
+
+    // NomReseau and SerieNmb values a few typos away from the text, nearest first.
+    public List<FuzzyIndex.Suggestion> suggest(String text, int limit) {
+        return fuzzy.suggest(text, limit);
+    }
+
+    // Sorted ids matching the query (exact), or a sorted superset still to be tested against it.
+    private record Candidates(long[] ids, boolean exact) {
+    }
+
+    // Ids of the machines of the inventory matching the query, in no particular order.
+    public long[] search(SearchQuery query, InventorySnapshot inventory) {
+        if (query instanceof SearchQuery.Text term) {
+            return text.search(term.needle());
+        }
+        return verify(query, inventory, candidates(query), null, () -> false);
+    }
+
+    // Reuses the previous result when the query narrows it in the same inventory version: the machines still to
+    // be tested are limited to the previous matches. Any write publishes a new version, so a result never
+    // outlives the data it was computed on. Queries the indexes answer exactly don't need it.
+    public SearchResult search(SearchQuery query, InventorySnapshot inventory, SearchResult previous) {
+        return search(query, inventory, previous, () -> false);
+    }
+
+    // Rows left to test are spread over the common ForkJoinPool; a CancellationException is thrown once cancelled
+    // reports true, which the caller does when a newer query supersedes this one.
+    public SearchResult search(SearchQuery query, InventorySnapshot inventory, SearchResult previous,
+                               BooleanSupplier cancelled) {
+        boolean refinable = previous != null
+                && previous.version() == inventory.version()
+                && query.narrows(previous.query());
+        long[] ids = verify(query, inventory, candidates(query), refinable ? previous.sortedIds() : null,
+                cancelled);
+        return new SearchResult(inventory.version(), query, ids);
+    }
+
+    private long[] verify(SearchQuery query, InventorySnapshot inventory, Candidates candidates, long[] within,
+                          BooleanSupplier cancelled) {
+        if (candidates != null && candidates.exact()) {
+            return candidates.ids();
+        }
+        long[] toTest = candidates == null ? within
+                : within == null ? candidates.ids() : intersect(candidates.ids(), within);
+        if (toTest == null) {
+            List<MachineSnapshot> machines = inventory.machines();
+            return ParallelFilter.filter(machines.size(), machines::get, query::test, cancelled);
+        }
+        return ParallelFilter.filter(toTest.length, i -> inventory.findById(toTest[i]).orElse(null), query::test,
+                cancelled);
+    }
+
+    // Null when no index narrows the query.
+    private Candidates candidates(SearchQuery query) {
+        return switch (query) {
+            case SearchQuery.All all -> new Candidates(allIds(), true);
+            case SearchQuery.Text term -> new Candidates(sorted(text.search(term.needle())), true);
+            case SearchQuery.Ipv4 term -> new Candidates(addressCandidates(term.range()), true);
+            case SearchQuery.Mac term -> new Candidates(macCandidates(term.range()), true);
+            case SearchQuery.Field term -> term.field().isIndexed()
+                    ? new Candidates(fieldCandidates(term.field(), term.pattern()), true)
+                    : literalCandidates(term.pattern());
+            case SearchQuery.Not not -> {
+                Candidates negated = candidates(not.term());
+                yield negated != null && negated.exact() ? new Candidates(difference(allIds(), negated.ids()), true)
+                        : null;
+            }
+            case SearchQuery.And and -> {
+                long[] result = null;
+                boolean exact = true;
+                for (SearchQuery child : and.terms()) {
+                    Candidates ids = candidates(child);
+                    if (ids == null) {
+                        exact = false;
+                        continue;
+                    }
+                    exact &= ids.exact();
+                    result = result == null ? ids.ids() : intersect(result, ids.ids());
+                }
+                yield result == null ? null : new Candidates(result, exact);
+            }
+            case SearchQuery.Or or -> {
+                long[] result = new long[0];
+                boolean exact = true;
+                for (SearchQuery child : or.terms()) {
+                    Candidates ids = candidates(child);
+                    if (ids == null) {
+                        yield null;
+                    }
+                    exact &= ids.exact();
+                    result = union(result, ids.ids());
+                }
+                yield new Candidates(result, exact);
+            }
+        };
+    }
+
+    private long[] allIds() {
+        return sorted(text.search(""));
+    }
+
+    private long[] fieldCandidates(SearchField field, ValuePattern pattern) {
+        lock.readLock().lock();
+        try {
+            Map<String, IntList> byValue = fieldDocs.get(field);
+            List<IntList> lists = new ArrayList<>();
+            if (pattern.isExact()) {
+                IntList docs = byValue.get(pattern.toString());
+                if (docs != null) {
+                    lists.add(docs);
+                }
+            } else {
+                byValue.forEach((value, docs) -> {
+                    if (pattern.matches(value)) {
+                        lists.add(docs);
+                    }
+                });
+            }
+            int total = lists.stream().mapToInt(IntList::size).sum();
+            long[] ids = new long[total];
+            int count = 0;
+            for (IntList docs : lists) {
+                for (int i = 0; i < docs.size(); i++) {
+                    ids[count++] = docIds[docs.get(i)];
+                }
+            }
+            return sorted(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] addressCandidates(Ipv4Range range) {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[addresses.count(range)];
+            int[] count = {0};
+            addresses.forEach(range, doc -> ids[count[0]++] = docIds[doc]);
+            Arrays.sort(ids);
+            return distinct(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] macCandidates(MacRange range) {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[macs.count(range)];
+            int[] count = {0};
+            macs.forEach(range, doc -> ids[count[0]++] = docIds[doc]);
+            Arrays.sort(ids);
+            return distinct(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every literal run of the pattern appears in one of the machine's fields, so the trigram index narrows it.
+    private Candidates literalCandidates(ValuePattern pattern) {
+        long[] result = null;
+        for (String literal : pattern.literals()) {
+            if (literal.trim().length() >= 3) {
+                long[] ids = sorted(text.search(literal));
+                result = result == null ? ids : intersect(result, ids);
+            }
+        }
+        return result == null ? null : new Candidates(result, false);
+    }
+
+    // A bulk put appends to the address and MAC indexes, which the caller sorts once at the end.
+    private void putLocked(MachineSnapshot machine, boolean bulk) {
+        removeLocked(machine.id());
+        int doc = freeDocs.isEmpty() ? docOrdinals.size() : freeDocs.pop();
+        if (doc == docIds.length) {
+            docIds = Arrays.copyOf(docIds, doc * 2);
+            docKeys = Arrays.copyOf(docKeys, doc * 2);
+            docAddresses = Arrays.copyOf(docAddresses, doc * 2);
+            docMacs = Arrays.copyOf(docMacs, doc * 2);
+        }
+        long[] parsed = {
+                NetworkAddresses.parseIPv4(machine.ipv4RJ45()),
+                NetworkAddresses.parseIPv4(machine.ipv4Wifi())
+        };
+        for (long address : parsed) {
+            if (address < 0) {
+                continue;
+            }
+            if (bulk) {
+                addresses.append(address, doc);
+            } else {
+                addresses.add(address, doc);
+            }
+        }
+        docAddresses[doc] = parsed;
+        long[] parsedMacs = {
+                NetworkAddresses.parseMac(machine.macEthernet()),
+                NetworkAddresses.parseMac(machine.macWifi())
+        };
+        for (long mac : parsedMacs) {
+            if (mac < 0) {
+                continue;
+            }
+            if (bulk) {
+                macs.append(mac, doc);
+            } else {
+                macs.add(mac, doc);
+            }
+        }
+        docMacs[doc] = parsedMacs;
+        String[] keys = new String[INDEXED.length];
+        for (int i = 0; i < INDEXED.length; i++) {
+            String value = INDEXED[i].values(machine)[0];
+            if (value != null) {
+                Map<String, IntList> byValue = fieldDocs.get(INDEXED[i]);
+                String key = TextFolding.fold(value);
+                IntList docs = byValue.computeIfAbsent(key, k -> new IntList());
+                docs.add(doc);
+                keys[i] = key;
+            }
+        }
+        docIds[doc] = machine.id();
+        docKeys[doc] = keys;
+        docOrdinals.put(machine.id(), doc);
+    }
+
+    private void removeLocked(long id) {
+        Integer doc = docOrdinals.remove(id);
+        if (doc == null) {
+            return;
+        }
+        String[] keys = docKeys[doc];
+        for (int i = 0; i < INDEXED.length; i++) {
+            if (keys[i] != null) {
+                Map<String, IntList> byValue = fieldDocs.get(INDEXED[i]);
+                IntList docs = byValue.get(keys[i]);
+                if (docs != null && docs.remove(doc) && docs.isEmpty()) {
+                    byValue.remove(keys[i]);
+                }
+            }
+        }
+        for (long address : docAddresses[doc]) {
+            if (address >= 0) {
+                addresses.remove(address, doc);
+            }
+        }
+        for (long mac : docMacs[doc]) {
+            if (mac >= 0) {
+                macs.remove(mac, doc);
+            }
+        }
+        docKeys[doc] = null;
+        docAddresses[doc] = null;
+        docMacs[doc] = null;
+        freeDocs.add(doc);
+    }
+
+    private static long[] sorted(long[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Drops repeated ids from a sorted array.
+    private static long[] distinct(long[] ids) {
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[count++] = ids[i];
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    private static long[] difference(long[] left, long[] right) {
+        long[] result = new long[left.length];
+        int count = 0;
+        int j = 0;
+        for (long id : left) {
+            while (j < right.length && right[j] < id) {
+                j++;
+            }
+            if (j >= right.length || right[j] != id) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long[] union(long[] left, long[] right) {
+        long[] result = new long[left.length + right.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length || j < right.length) {
+            if (j >= right.length || (i < left.length && left[i] < right[j])) {
+                result[count++] = left[i++];
+            } else if (i >= left.length || right[j] < left[i]) {
+                result[count++] = right[j++];
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,13 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+
+import java.util.List;
+
+// The first matches of a search in table order, with every match in result for the next keystroke to refine.
+public record SearchPage(SearchResult result, List<MachineSnapshot> machines) {
+
+    public SearchPage {
+        machines = List.copyOf(machines);
+    }
+}
@@ -0,0 +1,116 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.util.TextFolding;
+
+import java.util.List;
+
+// Parsed search box query. Syntax:
+//   site:Bienne statut:maintenance garantie:oui model:"EliteDesk 800" ip:10.1.* ip:10.12.4.0/22 mac:001a.2b3c.4d5e
+// Terms are ANDed unless joined by OR; NOT negates the next term and parentheses group. A field term matches
+// the whole value, ignoring case and accents, with '*' as wildcard; a bare word matches any field containing it.
+// Parsing is lenient (unknown fields, dangling operators and unclosed quotes fall back to plain text) because
+// the query is re-run on every keystroke.
+public sealed interface SearchQuery {
+
+    boolean test(MachineSnapshot machine);
+
+    static SearchQuery parse(String text) {
+        return new SearchQueryParser(text == null ? "" : text).parse();
+    }
+
+    // True when every machine matching this query matches the previous one (not guaranteed the other way).
+    default boolean narrows(SearchQuery previous) {
+        return QueryRefinement.narrows(this, previous);
+    }
+
+    record All() implements SearchQuery {
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            return true;
+        }
+    }
+
+    record Text(String needle) implements SearchQuery {
+        public Text {
+            needle = TextFolding.fold(needle).trim();
+        }
+
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            for (String value : MachineSearchFields.of(machine)) {
+                if (value != null && TextFolding.fold(value).contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Field(SearchField field, ValuePattern pattern) implements SearchQuery {
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            for (String value : field.values(machine)) {
+                if (pattern.matches(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ip: with a CIDR block, an address range or one address; compares addresses as numbers, not text.
+    record Ipv4(Ipv4Range range) implements SearchQuery {
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            return range.contains(machine.ipv4RJ45()) || range.contains(machine.ipv4Wifi());
+        }
+    }
+
+    // mac: with a full address or a vendor prefix (00:1A:2B or 00:1A:2B*), in any notation; compares 48-bit values.
+    record Mac(MacRange range) implements SearchQuery {
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            return range.contains(machine.macEthernet()) || range.contains(machine.macWifi());
+        }
+    }
+
+    record And(List<SearchQuery> terms) implements SearchQuery {
+        public And {
+            terms = List.copyOf(terms);
+        }
+
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            for (SearchQuery term : terms) {
+                if (!term.test(machine)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    record Or(List<SearchQuery> terms) implements SearchQuery {
+        public Or {
+            terms = List.copyOf(terms);
+        }
+
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            for (SearchQuery term : terms) {
+                if (term.test(machine)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Not(SearchQuery term) implements SearchQuery {
+        @Override
+        public boolean test(MachineSnapshot machine) {
+            return !term.test(machine);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.cspinventory.search;
+
+import com.cspinventory.util.NetworkAddresses;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+// Recursive descent over: or := and ("OR" and)* ; and := unary ("AND"? unary)* ;
+// unary := "NOT" unary | "(" or ")" | word. Operators are only recognised in upper case so "or" stays a word.
+final class SearchQueryParser {
+
+    private enum Kind { WORD, OPEN, CLOSE, AND, OR, NOT }
+
+    // field is the text before the first unquoted ':' of a word, value the rest without quotes.
+    private record Token(Kind kind, String text, String field, String value) {
+    }
+
+    private final List<Token> tokens;
+    private int position;
+
+    SearchQueryParser(String text) {
+        this.tokens = tokenize(text);
+    }
+
+    SearchQuery parse() {
+        List<SearchQuery> terms = new ArrayList<>();
+        while (position < tokens.size()) {
+            SearchQuery term = parseOr();
+            if (term != null) {
+                terms.add(term);
+            } else {
+                // Stray ')' or operator with nothing to apply to.
+                position++;
+            }
+        }
+        return terms.isEmpty() ? new SearchQuery.All() : combineAnd(terms);
+    }
+
+    private SearchQuery parseOr() {
+        List<SearchQuery> terms = new ArrayList<>();
+        SearchQuery first = parseAnd();
+        if (first != null) {
+            terms.add(first);
+        }
+        while (peek(Kind.OR)) {
+            position++;
+            SearchQuery next = parseAnd();
+            if (next != null) {
+                terms.add(next);
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return terms.size() == 1 ? terms.get(0) : new SearchQuery.Or(terms);
+    }
+
+    private SearchQuery parseAnd() {
+        List<SearchQuery> terms = new ArrayList<>();
+        while (position < tokens.size() && !peek(Kind.OR) && !peek(Kind.CLOSE)) {
+            if (peek(Kind.AND)) {
+                position++;
+                continue;
+            }
+            SearchQuery term = parseUnary();
+            if (term != null) {
+                terms.add(term);
+            }
+        }
+        return terms.isEmpty() ? null : combineAnd(terms);
+    }
+
+    private SearchQuery parseUnary() {
+        Token token = tokens.get(position++);
+        return switch (token.kind()) {
+            case NOT -> {
+                if (position >= tokens.size() || peek(Kind.OR) || peek(Kind.CLOSE)) {
+                    yield null;
+                }
+                SearchQuery term = parseUnary();
+                yield term == null ? null : new SearchQuery.Not(term);
+            }
+            case OPEN -> {
+                SearchQuery group = parseOr();
+                if (peek(Kind.CLOSE)) {
+                    position++;
+                }
+                yield group;
+            }
+            case WORD -> term(token);
+            default -> null;
+        };
+    }
+
+    private static SearchQuery term(Token token) {
+        SearchField field = token.field() == null ? null : SearchField.byName(token.field());
+        if (field == SearchField.IP && token.value().indexOf('*') < 0) {
+            Optional<Ipv4Range> range = Ipv4Range.parse(token.value());
+            if (range.isPresent()) {
+                return new SearchQuery.Ipv4(range.get());
+            }
+        }
+        if (field == SearchField.MAC) {
+            Optional<MacRange> range = MacRange.parse(token.value());
+            if (range.isPresent()) {
+                return new SearchQuery.Mac(range.get());
+            }
+        }
+        if (field != null && !token.value().isBlank()) {
+            String value = field == SearchField.GARANTIE ? garantie(token.value()) : token.value();
+            return new SearchQuery.Field(field, ValuePattern.of(value));
+        }
+        // A whole MAC typed without "mac:" is both text and the address in any other notation.
+        long mac = field == null ? NetworkAddresses.parseMac(token.text()) : -1;
+        if (mac >= 0) {
+            return new SearchQuery.Or(List.of(
+                    new SearchQuery.Text(token.text()), new SearchQuery.Mac(new MacRange(mac, mac))));
+        }
+        return new SearchQuery.Text(token.text());
+    }
+
+    // Garantie is stored as true/false; accept what people type.
+    private static String garantie(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "oui", "o", "yes", "y", "1", "true" -> "true";
+            case "non", "n", "no", "0", "false" -> "false";
+            default -> value;
+        };
+    }
+
+    private static SearchQuery combineAnd(List<SearchQuery> terms) {
+        return terms.size() == 1 ? terms.get(0) : new SearchQuery.And(terms);
+    }
+
+    private boolean peek(Kind kind) {
+        return position < tokens.size() && tokens.get(position).kind() == kind;
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(Kind.OPEN, "(", null, null));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(Kind.CLOSE, ")", null, null));
+                i++;
+            } else {
+                StringBuilder word = new StringBuilder();
+                String field = null;
+                int valueStart = 0;
+                boolean quoted = false;
+                while (i < text.length()) {
+                    c = text.charAt(i);
+                    if (c == '"') {
+                        quoted = true;
+                        int end = text.indexOf('"', i + 1);
+                        end = end < 0 ? text.length() : end;
+                        word.append(text, i + 1, end);
+                        i = Math.min(end + 1, text.length());
+                    } else if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                        break;
+                    } else {
+                        if (c == ':' && field == null && !quoted) {
+                            field = word.toString();
+                            valueStart = word.length() + 1;
+                        }
+                        word.append(c);
+                        i++;
+                    }
+                }
+                String value = word.toString();
+                if (field == null && !quoted && value.length() > 0) {
+                    Kind operator = switch (value) {
+                        case "AND" -> Kind.AND;
+                        case "OR" -> Kind.OR;
+                        case "NOT" -> Kind.NOT;
+                        default -> Kind.WORD;
+                    };
+                    if (operator != Kind.WORD) {
+                        tokens.add(new Token(operator, value, null, null));
+                        continue;
+                    }
+                }
+                if (!value.isBlank()) {
+                    tokens.add(new Token(Kind.WORD, value, field, field == null ? value : value.substring(valueStart)));
+                }
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cspinventory.search;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+// Matches of a query in one inventory version; kept by the caller so the next keystroke can refine it.
+public final class SearchResult {
+
+    // Version of the matches the database returned while no snapshot was loaded; they are never refined.
+    public static final long NO_SNAPSHOT = -1;
+
+    private final long version;
+    private final SearchQuery query;
+    private final long[] ids;
+
+    public SearchResult(long version, SearchQuery query, long[] ids) {
+        this.version = version;
+        this.query = query;
+        this.ids = ids.clone();
+        Arrays.sort(this.ids);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public SearchQuery query() {
+        return query;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public LongStream ids() {
+        return Arrays.stream(ids);
+    }
+
+    long[] sortedIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,228 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Substring index over MachineSearchFields, with the same matching rule as MachineService.matches(): a machine
+// matches when one of its fields, folded by TextFolding, contains the trimmed folded query.
+// Field values are folded and kept once per distinct value (statuts, sites and dates repeat across thousands of
+// machines). Each value is split into trigrams; a query intersects the posting lists of its own trigrams,
+// checks the surviving values with contains() and returns the machines holding one of them. Queries shorter
+// than a trigram scan the distinct values instead.
+public final class TrigramIndex {
+
+    private static final int TRIGRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Distinct folded values, the machines holding each one and the values holding each trigram.
+    private final Map<String, Integer> valueOrdinals = new HashMap<>();
+    private String[] values = new String[1024];
+    private IntList[] valueDocs = new IntList[1024];
+    private final IntList freeValues = new IntList();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    // Indexed machines: ordinal to id and to the value ordinals of its fields.
+    private final Map<Long, Integer> docOrdinals = new HashMap<>();
+    private long[] docIds = new long[1024];
+    private int[][] docValues = new int[1024][];
+    private final IntList freeDocs = new IntList();
+
+    public void rebuild(Collection<MachineSnapshot> machines) {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            for (MachineSnapshot machine : machines) {
+                putLocked(machine);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds the machine, or replaces the indexed values of a machine with the same id.
+    public void put(MachineSnapshot machine) {
+        lock.writeLock().lock();
+        try {
+            putLocked(machine);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docOrdinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the matching machines, in no particular order; every indexed machine for a blank query.
+    public long[] search(String text) {
+        String needle = text == null ? "" : TextFolding.fold(text).trim();
+        lock.readLock().lock();
+        try {
+            if (needle.isEmpty()) {
+                return docOrdinals.keySet().stream().mapToLong(Long::longValue).toArray();
+            }
+            BitSet docs = new BitSet();
+            if (needle.length() < TRIGRAM) {
+                for (int value = 0; value < values.length; value++) {
+                    if (values[value] != null && values[value].contains(needle)) {
+                        addDocs(value, docs);
+                    }
+                }
+            } else {
+                collectTrigramMatches(needle, docs);
+            }
+            long[] ids = new long[docs.cardinality()];
+            int i = 0;
+            for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+                ids[i++] = docIds[doc];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectTrigramMatches(String needle, BitSet docs) {
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + TRIGRAM <= needle.length(); i++) {
+            IntList list = postings.get(trigram(needle, i));
+            if (list == null) {
+                return;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+        IntList smallest = lists.get(0);
+        candidates:
+        for (int i = 0; i < smallest.size(); i++) {
+            int value = smallest.get(i);
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(value)) {
+                    continue candidates;
+                }
+            }
+            // Every trigram is present, but not necessarily in sequence.
+            if (values[value].contains(needle)) {
+                addDocs(value, docs);
+            }
+        }
+    }
+
+    private void addDocs(int value, BitSet docs) {
+        IntList holders = valueDocs[value];
+        for (int i = 0; i < holders.size(); i++) {
+            docs.set(holders.get(i));
+        }
+    }
+
+    private void putLocked(MachineSnapshot machine) {
+        removeLocked(machine.id());
+        int doc = freeDocs.isEmpty() ? docOrdinals.size() : freeDocs.pop();
+        if (doc == docIds.length) {
+            docIds = Arrays.copyOf(docIds, doc * 2);
+            docValues = Arrays.copyOf(docValues, doc * 2);
+        }
+        String[] fields = MachineSearchFields.of(machine);
+        int[] ordinals = new int[fields.length];
+        int count = 0;
+        for (String field : fields) {
+            if (field != null && !field.isEmpty()) {
+                int value = intern(TextFolding.fold(field));
+                valueDocs[value].add(doc);
+                ordinals[count++] = value;
+            }
+        }
+        docIds[doc] = machine.id();
+        docValues[doc] = Arrays.copyOf(ordinals, count);
+        docOrdinals.put(machine.id(), doc);
+    }
+
+    private void removeLocked(long id) {
+        Integer doc = docOrdinals.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (int value : docValues[doc]) {
+            IntList holders = valueDocs[value];
+            if (holders.remove(doc) && holders.isEmpty()) {
+                dropValue(value);
+            }
+        }
+        docValues[doc] = null;
+        freeDocs.add(doc);
+    }
+
+    private int intern(String text) {
+        Integer existing = valueOrdinals.get(text);
+        if (existing != null) {
+            return existing;
+        }
+        int value = freeValues.isEmpty() ? valueOrdinals.size() : freeValues.pop();
+        if (value == values.length) {
+            values = Arrays.copyOf(values, value * 2);
+            valueDocs = Arrays.copyOf(valueDocs, value * 2);
+        }
+        values[value] = text;
+        valueDocs[value] = new IntList(1);
+        valueOrdinals.put(text, value);
+        for (int i = 0; i + TRIGRAM <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new IntList()).add(value);
+        }
+        return value;
+    }
+
+    private void dropValue(int value) {
+        String text = values[value];
+        for (int i = 0; i + TRIGRAM <= text.length(); i++) {
+            long key = trigram(text, i);
+            IntList list = postings.get(key);
+            if (list != null && list.remove(value) && list.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+        valueOrdinals.remove(text);
+        values[value] = null;
+        valueDocs[value] = null;
+        freeValues.add(value);
+    }
+
+    private void clearLocked() {
+        valueOrdinals.clear();
+        Arrays.fill(values, null);
+        Arrays.fill(valueDocs, null);
+        freeValues.clear();
+        postings.clear();
+        docOrdinals.clear();
+        Arrays.fill(docValues, null);
+        freeDocs.clear();
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
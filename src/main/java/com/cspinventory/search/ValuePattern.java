@@ -0,0 +1,70 @@
+package com.cspinventory.search;
+
+import com.cspinventory.util.TextFolding;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Case- and accent-insensitive value of a field term: an exact value, or a glob where '*' stands for any run of
+// characters.
+public final class ValuePattern {
+
+    private final String text;
+    private final String[] parts;
+
+    private ValuePattern(String text) {
+        this.text = text;
+        this.parts = text.split("\\*", -1);
+    }
+
+    public static ValuePattern of(String text) {
+        return new ValuePattern(TextFolding.fold(text).trim());
+    }
+
+    public boolean isExact() {
+        return parts.length == 1;
+    }
+
+    public boolean matches(String value) {
+        if (value == null) {
+            return false;
+        }
+        String folded = TextFolding.fold(value);
+        if (isExact()) {
+            return folded.equals(text);
+        }
+        if (!folded.startsWith(parts[0])) {
+            return false;
+        }
+        int from = parts[0].length();
+        for (int i = 1; i < parts.length - 1; i++) {
+            int at = folded.indexOf(parts[i], from);
+            if (at < 0) {
+                return false;
+            }
+            from = at + parts[i].length();
+        }
+        String last = parts[parts.length - 1];
+        return folded.length() - last.length() >= from && folded.endsWith(last);
+    }
+
+    // The fixed runs between wildcards; any matching value contains each of them.
+    public List<String> literals() {
+        return Arrays.stream(parts).filter(part -> !part.isEmpty()).toList();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ValuePattern pattern && pattern.text.equals(text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
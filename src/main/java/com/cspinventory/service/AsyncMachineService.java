@@ -0,0 +1,106 @@
+package com.cspinventory.service;
+
+import com.cspinventory.dao.MachineChanges;
+import com.cspinventory.model.InventorySnapshot;
+import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Runs MachineService calls on virtual threads and completes the returned futures on the result executor
+// (Platform::runLater in the application), so callbacks chained with thenAccept/whenComplete run on the
+// JavaFX Application Thread and database work never does.
+public class AsyncMachineService implements AutoCloseable {
+
+    private final MachineService machineService;
+    private final ExecutorService workExecutor;
+    private final Executor resultExecutor;
+
+    public AsyncMachineService(MachineService machineService, Executor resultExecutor) {
+        this(machineService, Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("machine-service-", 0).factory()), resultExecutor);
+    }
+
+    AsyncMachineService(MachineService machineService, ExecutorService workExecutor, Executor resultExecutor) {
+        this.machineService = machineService;
+        this.workExecutor = workExecutor;
+        this.resultExecutor = resultExecutor;
+    }
+
+    public MachineService getMachineService() {
+        return machineService;
+    }
+
+    // For work combining several calls that should run as one background task.
+    public <T> CompletableFuture<T> call(Function<MachineService, T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        workExecutor.execute(() -> {
+            try {
+                T value = work.apply(machineService);
+                resultExecutor.execute(() -> result.complete(value));
+            } catch (Throwable e) {
+                resultExecutor.execute(() -> result.completeExceptionally(e));
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<InventorySnapshot> snapshot() {
+        return call(MachineService::snapshot);
+    }
+
+    public CompletableFuture<List<MachineSnapshot>> findAll() {
+        return call(MachineService::findAll);
+    }
+
+    public CompletableFuture<List<MachineSnapshot>> findPage(String afterNomReseau, Long afterId, int limit) {
+        return call(service -> service.findPage(afterNomReseau, afterId, limit));
+    }
+
+    public CompletableFuture<Long> count() {
+        return call(MachineService::count);
+    }
+
+    public CompletableFuture<MachineChanges> findModifiedSince(long since) {
+        return call(service -> service.findModifiedSince(since));
+    }
+
+    public CompletableFuture<Machine> create(Machine machine) {
+        return call(service -> service.create(machine));
+    }
+
+    public CompletableFuture<Machine> update(Machine machine) {
+        return call(service -> service.update(machine));
+    }
+
+    public CompletableFuture<Void> delete(long id) {
+        return call(service -> {
+            service.delete(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> isNomReseauTaken(String nomReseau, Long excludeId) {
+        return call(service -> service.isNomReseauTaken(nomReseau, excludeId));
+    }
+
+    // Dependent stages see failures wrapped in CompletionException; this returns the original error.
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @Override
+    public void close() {
+        workExecutor.shutdown();
+    }
+}
@@ -1,6 +1,6 @@
 package com.cspinventory.service;
 
-import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
@@ -12,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class ExcelExportService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
@@ -24,7 +25,12 @@ public class ExcelExportService {
             "Note", "PurchaseDate", "DateMiseEnService", "DateModif"
     };
 
-    public void export(List<Machine> machines, Path destination) {
+    public void export(List<MachineSnapshot> machines, Path destination) {
+        export(machines.stream(), destination);
+    }
+
+    // Rows are written as they are pulled from the stream, so memory does not grow with the inventory size.
+    public void export(Stream<MachineSnapshot> machines, Path destination) {
         try (SXSSFWorkbook workbook = new SXSSFWorkbook(200)) {
             workbook.setCompressTempFiles(true);
             SXSSFSheet sheet = workbook.createSheet("Machines");
@@ -36,40 +42,22 @@ public class ExcelExportService {
                 cell.setCellValue(HEADERS[i]);
             }
 
-            int rowIdx = 1;
-            for (Machine machine : machines) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(nullSafe(machine.getNomReseau()));
-                row.createCell(1).setCellValue(nullSafe(machine.getSerieNmb()));
-                row.createCell(2).setCellValue(nullSafe(machine.getModel()));
-                row.createCell(3).setCellValue(nullSafe(machine.getUtilisateur()));
-                row.createCell(4).setCellValue(nullSafe(machine.getEmplacement()));
-                row.createCell(5).setCellValue(nullSafe(machine.getSite()));
-                row.createCell(6).setCellValue(nullSafe(machine.getLieu()));
-                row.createCell(7).setCellValue(nullSafe(machine.getIpv4RJ45()));
-                row.createCell(8).setCellValue(nullSafe(machine.getIpv4Wifi()));
-                row.createCell(9).setCellValue(nullSafe(machine.getMacEthernet()));
-                row.createCell(10).setCellValue(nullSafe(machine.getMacWifi()));
-                row.createCell(11).setCellValue(nullSafe(machine.getVlan()));
-                row.createCell(12).setCellValue(machine.isGarantie() ? "Oui" : "Non");
-                row.createCell(13).setCellValue(nullSafe(machine.getStatut()));
-                row.createCell(14).setCellValue(nullSafe(machine.getNote()));
-                row.createCell(15).setCellValue(
-                        machine.getPurchaseDate() != null ? machine.getPurchaseDate().format(DATE_FORMATTER) : "");
-                row.createCell(16)
-                        .setCellValue(machine.getDateMiseEnService() != null
-                                ? machine.getDateMiseEnService().format(DATE_FORMATTER)
-                                : "");
-                row.createCell(17).setCellValue(
-                        machine.getDateModif() != null ? machine.getDateModif().format(DATE_TIME_FORMATTER) : "");
-            }
+            int[] count = {0};
+            machines.forEachOrdered(machine -> {
+                writeRow(sheet.createRow(++count[0]), machine);
+                if (count[0] == AUTO_SIZE_MAX_ROWS + 1) {
+                    // Fixed widths will be used anyway, stop measuring every cell.
+                    sheet.untrackAllColumnsForAutoSizing();
+                }
+            });
+            int machineCount = count[0];
 
-            Row totalRow = sheet.createRow(rowIdx + 1);
+            Row totalRow = sheet.createRow(machineCount + 2);
             totalRow.createCell(0).setCellValue("Total machines");
-            totalRow.createCell(1).setCellValue(machines.size());
+            totalRow.createCell(1).setCellValue(machineCount);
 
             sheet.createFreezePane(0, 1);
-            resizeColumns(sheet, machines.size());
+            resizeColumns(sheet, machineCount);
 
             if (destination.getParent() != null) {
                 Files.createDirectories(destination.getParent());
@@ -82,6 +70,32 @@ public class ExcelExportService {
         }
     }
 
+    private void writeRow(Row row, MachineSnapshot machine) {
+        row.createCell(0).setCellValue(nullSafe(machine.nomReseau()));
+        row.createCell(1).setCellValue(nullSafe(machine.serieNmb()));
+        row.createCell(2).setCellValue(nullSafe(machine.model()));
+        row.createCell(3).setCellValue(nullSafe(machine.utilisateur()));
+        row.createCell(4).setCellValue(nullSafe(machine.emplacement()));
+        row.createCell(5).setCellValue(nullSafe(machine.site()));
+        row.createCell(6).setCellValue(nullSafe(machine.lieu()));
+        row.createCell(7).setCellValue(nullSafe(machine.ipv4RJ45()));
+        row.createCell(8).setCellValue(nullSafe(machine.ipv4Wifi()));
+        row.createCell(9).setCellValue(nullSafe(machine.macEthernet()));
+        row.createCell(10).setCellValue(nullSafe(machine.macWifi()));
+        row.createCell(11).setCellValue(nullSafe(machine.vlan()));
+        row.createCell(12).setCellValue(machine.garantie() ? "Oui" : "Non");
+        row.createCell(13).setCellValue(nullSafe(machine.statut()));
+        row.createCell(14).setCellValue(nullSafe(machine.note()));
+        row.createCell(15).setCellValue(
+                machine.purchaseDate() != null ? machine.purchaseDate().format(DATE_FORMATTER) : "");
+        row.createCell(16)
+                .setCellValue(machine.dateMiseEnService() != null
+                        ? machine.dateMiseEnService().format(DATE_FORMATTER)
+                        : "");
+        row.createCell(17).setCellValue(
+                machine.dateModif() != null ? machine.dateModif().format(DATE_TIME_FORMATTER) : "");
+    }
+
     private String nullSafe(String value) {
         return value == null ? "" : value;
     }
@@ -0,0 +1,139 @@
+package com.cspinventory.service;
+
+import com.cspinventory.model.MachineSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+
+// Dashboard figures of a set of machines, kept up to date by subtracting a changed row and adding it back instead
+// of counting the whole inventory again. Not thread-safe: the cache only touches its instance under its lock.
+final class InventoryStats {
+
+    // Rows counted between two checks of the cancellation flag.
+    private static final int CANCEL_CHECK_INTERVAL = 4_096;
+
+    private long count;
+    private long ok;
+    private long maintenance;
+    private long manque;
+    private long garantie;
+    private long noUser;
+    private long rj45;
+    private long wifi;
+    private long both;
+    private final RankedCounts lieux = new RankedCounts();
+    private final RankedCounts sites = new RankedCounts();
+    // DateModif values and how many machines hold each, so the latest survives removing one of them.
+    private final TreeMap<LocalDateTime, Integer> dateModifs = new TreeMap<>();
+
+    // Figures of the given rows, or null once cancelled.
+    static InventoryStats of(Collection<MachineSnapshot> machines, BooleanSupplier cancelled) {
+        InventoryStats stats = new InventoryStats();
+        int counted = 0;
+        for (MachineSnapshot machine : machines) {
+            if (counted++ % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            stats.add(machine);
+        }
+        return stats;
+    }
+
+    void add(MachineSnapshot machine) {
+        apply(machine, 1);
+    }
+
+    void remove(MachineSnapshot machine) {
+        apply(machine, -1);
+    }
+
+    InventorySummary summary(int topLimit) {
+        return new InventorySummary(count, ok, maintenance, manque, garantie, noUser, rj45, wifi, both,
+                lieux.top(topLimit), sites.top(topLimit), dateModifs.isEmpty() ? null : dateModifs.lastKey());
+    }
+
+    private void apply(MachineSnapshot machine, int sign) {
+        count += sign;
+        String statut = machine.statut();
+        if (statut == null || statut.isBlank() || "Ok".equalsIgnoreCase(statut)) {
+            ok += sign;
+        } else if ("Maintenance".equalsIgnoreCase(statut)) {
+            maintenance += sign;
+        } else if ("Manque".equalsIgnoreCase(statut)) {
+            manque += sign;
+        }
+        if (machine.garantie()) {
+            garantie += sign;
+        }
+        if (isBlank(machine.utilisateur())) {
+            noUser += sign;
+        }
+        boolean hasRJ45 = !isBlank(machine.ipv4RJ45());
+        boolean hasWifi = !isBlank(machine.ipv4Wifi());
+        if (hasRJ45) {
+            rj45 += sign;
+        }
+        if (hasWifi) {
+            wifi += sign;
+        }
+        if (hasRJ45 && hasWifi) {
+            both += sign;
+        }
+        lieux.add(machine.lieu(), sign);
+        sites.add(machine.site(), sign);
+        LocalDateTime dateModif = machine.dateModif();
+        if (dateModif != null) {
+            dateModifs.merge(dateModif, sign, (held, delta) -> held + delta == 0 ? null : held + delta);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // Counts per value, also kept ordered by count (highest first, then by value) so the top entries are read
+    // without sorting; a change moves one entry in the ordered set.
+    private static final class RankedCounts {
+
+        private static final Comparator<Map.Entry<String, Long>> RANK =
+                Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+        private final Map<String, Long> counts = new HashMap<>();
+        private final TreeSet<Map.Entry<String, Long>> ranked = new TreeSet<>(RANK);
+
+        void add(String key, int delta) {
+            if (isBlank(key)) {
+                return;
+            }
+            Long held = counts.get(key);
+            long updated = (held == null ? 0 : held) + delta;
+            if (held != null) {
+                ranked.remove(Map.entry(key, held));
+            }
+            if (updated == 0) {
+                counts.remove(key);
+            } else {
+                counts.put(key, updated);
+                ranked.add(Map.entry(key, updated));
+            }
+        }
+
+        List<Map.Entry<String, Long>> top(int limit) {
+            List<Map.Entry<String, Long>> top = new ArrayList<>(limit);
+            Iterator<Map.Entry<String, Long>> entries = ranked.iterator();
+            while (top.size() < limit && entries.hasNext()) {
+                top.add(entries.next());
+            }
+            return top;
+        }
+    }
+}
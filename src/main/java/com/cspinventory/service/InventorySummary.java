@@ -0,0 +1,20 @@
+package com.cspinventory.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Dashboard figures at one point in time. topLieux and topSites hold the most common values, highest count first;
+// latestUpdate is null when no machine has a DateModif.
+public record InventorySummary(long count, long ok, long maintenance, long manque, long garantie, long noUser,
+                               long rj45, long wifi, long both, List<Map.Entry<String, Long>> topLieux,
+                               List<Map.Entry<String, Long>> topSites, LocalDateTime latestUpdate) {
+
+    public static final InventorySummary EMPTY = new InventorySummary(0, 0, 0, 0, 0, 0, 0, 0, 0, List.of(), List.of(),
+            null);
+
+    public InventorySummary {
+        topLieux = List.copyOf(topLieux);
+        topSites = List.copyOf(topSites);
+    }
+}
@@ -0,0 +1,257 @@
+package com.cspinventory.service;
+
+import com.cspinventory.dao.MachineChanges;
+import com.cspinventory.dao.MachineDao;
+import com.cspinventory.model.InventorySnapshot;
+import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.search.FuzzyIndex;
+import com.cspinventory.search.SearchIndex;
+import com.cspinventory.search.SearchQuery;
+import com.cspinventory.search.SearchResult;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+// Holds the current InventorySnapshot. Readers take the published snapshot without locking; loads, write-through
+// updates and catch-ups are serialized by one lock so a write committed during a load is applied on top of it.
+final class MachineCache {
+
+    // syncPoint is the last change number the snapshot is known to contain.
+    private record Entry(InventorySnapshot inventory, long dataVersion, long syncPoint) {
+    }
+
+    private final MachineDao dao;
+    private final AtomicReference<Entry> current = new AtomicReference<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong catchUps = new AtomicLong();
+    private volatile long lastLoadMillis;
+    // Versions keep increasing across reloads so a reader can tell any two snapshots apart.
+    private long lastVersion;
+    // Built on the first search after a load, then kept up to date by write-through and catch-ups.
+    private final SearchIndex searchIndex = new SearchIndex();
+    private volatile long indexedVersion = -1;
+    // Held for reading across a whole search and for writing while the index is patched or rebuilt, so a result
+    // always comes from the index state of the snapshot version it is tagged with.
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // Dashboard figures, counted on the first summary after a load and then patched like the search index.
+    private InventoryStats inventoryStats;
+    private long statsVersion = -1;
+
+    MachineCache(MachineDao dao) {
+        this.dao = dao;
+    }
+
+    // The data version and the sync point are read before the rows, so a commit racing the load is read again
+    // by the next catch-up; applying a change twice leaves the same snapshot.
+    InventorySnapshot get() {
+        Entry entry = current.get();
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.inventory();
+        }
+        lock.lock();
+        try {
+            entry = current.get();
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.inventory();
+            }
+            misses.incrementAndGet();
+            long loadGeneration = generation.get();
+            long start = System.nanoTime();
+            long version = dao.dataVersion();
+            long syncPoint = dao.latestChange();
+            List<MachineSnapshot> rows = dao.findAll().stream().map(MachineSnapshot::of).toList();
+            InventorySnapshot inventory = InventorySnapshot.of(++lastVersion, rows);
+            if (generation.get() == loadGeneration) {
+                current.set(new Entry(inventory, version, syncPoint));
+            }
+            loads.incrementAndGet();
+            lastLoadMillis = (System.nanoTime() - start) / 1_000_000;
+            return inventory;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The published snapshot, or null without loading one.
+    InventorySnapshot loaded() {
+        Entry entry = current.get();
+        return entry == null ? null : entry.inventory();
+    }
+
+    // Sync point of the published snapshot, or -1 when none is loaded.
+    long syncPoint() {
+        Entry entry = current.get();
+        return entry == null ? -1 : entry.syncPoint();
+    }
+
+    // Ids of the machines matching the query in the published snapshot.
+    long[] search(SearchQuery query) {
+        return withIndex(inventory -> searchIndex.search(query, inventory));
+    }
+
+    // Same, reusing the previous result when the query narrows it and the snapshot has not changed since.
+    SearchResult search(SearchQuery query, SearchResult previous, BooleanSupplier cancelled) {
+        return withIndex(inventory -> searchIndex.search(query, inventory, previous, cancelled));
+    }
+
+    List<FuzzyIndex.Suggestion> suggest(String text, int limit) {
+        return withIndex(inventory -> searchIndex.suggest(text, limit));
+    }
+
+    // Runs the search while the index matches the snapshot passed to it; a write published in between makes it
+    // index the newer snapshot and search again.
+    private <T> T withIndex(Function<InventorySnapshot, T> search) {
+        while (true) {
+            InventorySnapshot inventory = indexed();
+            indexLock.readLock().lock();
+            try {
+                if (indexedVersion == inventory.version()) {
+                    return search.apply(inventory);
+                }
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+    }
+
+    private InventorySnapshot indexed() {
+        InventorySnapshot inventory = get();
+        if (indexedVersion != inventory.version()) {
+            lock.lock();
+            try {
+                Entry entry = current.get();
+                inventory = entry != null ? entry.inventory() : inventory;
+                if (indexedVersion != inventory.version()) {
+                    indexLock.writeLock().lock();
+                    try {
+                        searchIndex.rebuild(inventory.machines());
+                        indexedVersion = inventory.version();
+                    } finally {
+                        indexLock.writeLock().unlock();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return inventory;
+    }
+
+    InventorySummary summary(int topLimit) {
+        lock.lock();
+        try {
+            InventorySnapshot inventory = get();
+            if (statsVersion != inventory.version()) {
+                inventoryStats = InventoryStats.of(inventory.machines(), () -> false);
+                statsVersion = inventory.version();
+            }
+            return inventoryStats.summary(topLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies the rows other instances committed since the snapshot was loaded, read from the change sequence;
+    // false when the data version shows no such commit. The snapshot is dropped only when the tombstones it
+    // needs were already pruned.
+    boolean catchUp() {
+        if (current.get() == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Entry entry = current.get();
+            if (entry == null) {
+                return false;
+            }
+            long version = dao.dataVersion();
+            if (entry.dataVersion() == version) {
+                return false;
+            }
+            MachineChanges changes = dao.findModifiedSince(entry.syncPoint());
+            if (!changes.complete()) {
+                generation.incrementAndGet();
+                current.set(null);
+                invalidations.incrementAndGet();
+                return true;
+            }
+            List<MachineSnapshot> changed = changes.modified().stream().map(MachineSnapshot::of).toList();
+            publish(entry, changed, changes.deletedIds(), version, Math.max(entry.syncPoint(), changes.syncPoint()));
+            catchUps.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        if (current.getAndSet(null) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    // Write-through for committed saves, updates and deletes; publishes the next snapshot.
+    void apply(Collection<Machine> saved, Collection<Long> removedIds) {
+        if (saved.isEmpty() && removedIds.isEmpty()) {
+            return;
+        }
+        List<MachineSnapshot> changed = saved.stream().map(MachineSnapshot::of).toList();
+        lock.lock();
+        try {
+            Entry entry = current.get();
+            if (entry != null) {
+                publish(entry, changed, removedIds, entry.dataVersion(), entry.syncPoint());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held.
+    private void publish(Entry entry, List<MachineSnapshot> changed, Collection<Long> removedIds,
+                         long dataVersion, long syncPoint) {
+        InventorySnapshot next = entry.inventory().withChanges(changed, removedIds);
+        if (indexedVersion == entry.inventory().version()) {
+            indexLock.writeLock().lock();
+            try {
+                removedIds.forEach(searchIndex::remove);
+                changed.forEach(searchIndex::put);
+                indexedVersion = next.version();
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        }
+        if (statsVersion == entry.inventory().version()) {
+            Set<Long> replaced = new HashSet<>(removedIds);
+            changed.forEach(machine -> replaced.add(machine.id()));
+            replaced.forEach(id -> entry.inventory().findById(id).ifPresent(inventoryStats::remove));
+            changed.forEach(inventoryStats::add);
+            statsVersion = next.version();
+        }
+        lastVersion = next.version();
+        current.set(new Entry(next, dataVersion, syncPoint));
+    }
+
+    MachineCacheStats stats() {
+        Entry entry = current.get();
+        return new MachineCacheStats(hits.get(), misses.get(), loads.get(), invalidations.get(), catchUps.get(),
+                lastLoadMillis, entry == null ? 0 : entry.inventory().size());
+    }
+}
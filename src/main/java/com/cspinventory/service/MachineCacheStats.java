@@ -0,0 +1,11 @@
+package com.cspinventory.service;
+
+// catchUps counts the external commits applied to the snapshot without reloading it.
+public record MachineCacheStats(long hits, long misses, long loads, long invalidations, long catchUps,
+                                long lastLoadMillis, int size) {
+
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
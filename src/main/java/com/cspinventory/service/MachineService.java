@@ -1,29 +1,282 @@
 package com.cspinventory.service;
 
+import com.cspinventory.dao.BatchResult;
+import com.cspinventory.dao.MachineChanges;
 import com.cspinventory.dao.MachineDao;
+import com.cspinventory.model.InventorySnapshot;
 import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.model.SearchCriteria;
+import com.cspinventory.search.FuzzyIndex;
+import com.cspinventory.search.Ipv4Range;
+import com.cspinventory.search.MacRange;
+import com.cspinventory.search.SearchPage;
+import com.cspinventory.search.SearchQuery;
+import com.cspinventory.search.SearchResult;
+import com.cspinventory.util.TextFolding;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
-public class MachineService {
+public class MachineService implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(MachineService.class.getName());
+    private static final Duration TOMBSTONE_PRUNE_INTERVAL = Duration.ofHours(1);
+    private static final int STREAM_FETCH_SIZE = 500;
 
     private final MachineDao machineDao;
+    // Reads are served from memory once loaded; writes update it once committed and other processes' commits
+    // are read back from the change sequence.
+    private final MachineCache cache;
+    private ScheduledExecutorService changeMonitor;
+    // Identifies this instance in MachineSyncPoints.
+    private final String clientId = UUID.randomUUID().toString();
+    // Oldest change number a caller of findModifiedSince may still pass; -1 until one was handed out.
+    private volatile long handedOutSyncPoint = -1;
 
     public MachineService(MachineDao machineDao) {
         this.machineDao = machineDao;
+        this.cache = new MachineCache(machineDao);
+    }
+
+    // Polls the database data version so changes made by another instance of the application are seen, and
+    // prunes the tombstones every instance has seen.
+    public synchronized void startChangeMonitor(Duration interval) {
+        if (changeMonitor != null) {
+            return;
+        }
+        changeMonitor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "machine-cache-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        changeMonitor.scheduleWithFixedDelay(() -> {
+            try {
+                checkForExternalChanges();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cannot check the database for external changes", e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        long pruneMillis = TOMBSTONE_PRUNE_INTERVAL.toMillis();
+        changeMonitor.scheduleWithFixedDelay(() -> {
+            try {
+                pruneTombstones();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cannot prune the tombstones of deleted machines", e);
+            }
+        }, pruneMillis, pruneMillis, TimeUnit.MILLISECONDS);
+    }
+
+    boolean checkForExternalChanges() {
+        boolean changed = cache.catchUp();
+        if (changed) {
+            LOGGER.info("Machine cache updated after an external change");
+        }
+        return changed;
+    }
+
+    // For changes the data version cannot show, such as replacing the database file.
+    public void invalidateCache() {
+        cache.invalidate();
+    }
+
+    public MachineCacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    // The current state of the inventory; it never changes, later writes publish a new snapshot.
+    public InventorySnapshot snapshot() {
+        return cache.get();
+    }
+
+    public List<MachineSnapshot> findAll() {
+        return snapshot().machines();
+    }
+
+    // Until the inventory is in memory, rows are read lazily from an open cursor; close the stream when done.
+    public Stream<MachineSnapshot> streamAll() {
+        InventorySnapshot loaded = cache.loaded();
+        if (loaded != null) {
+            return loaded.stream();
+        }
+        return machineDao.streamAll(STREAM_FETCH_SIZE).map(MachineSnapshot::of);
+    }
+
+    // Dashboard figures over the whole inventory, whatever part of it the table has loaded.
+    public InventorySummary summary(int topLimit) {
+        return cache.summary(topLimit);
+    }
+
+    // Same figures over the machines of a search result, every match counted whatever the table shows. Throws
+    // CancellationException once cancelled reports true.
+    public InventorySummary summarize(SearchResult result, int topLimit, BooleanSupplier cancelled) {
+        InventorySnapshot inventory = snapshot();
+        List<MachineSnapshot> matching = new ArrayList<>(result.size());
+        result.ids().forEach(id -> inventory.findById(id).ifPresent(matching::add));
+        InventoryStats stats = InventoryStats.of(matching, cancelled);
+        if (stats == null) {
+            throw new CancellationException("Statistiques remplacees");
+        }
+        return stats.summary(topLimit);
+    }
+
+    // Ids of the machines matching a search box query; see SearchQuery for the syntax.
+    public Set<Long> findMatchingIds(String query) {
+        return findMatchingIds(SearchQuery.parse(query));
+    }
+
+    public Set<Long> findMatchingIds(SearchQuery query) {
+        long[] ids = cache.search(query);
+        Set<Long> matching = new HashSet<>(ids.length * 2);
+        for (long id : ids) {
+            matching.add(id);
+        }
+        return matching;
+    }
+
+    // Pass the result of the previous keystroke: a query that narrows it only re-tests those machines.
+    public SearchResult findMatching(SearchQuery query, SearchResult previous) {
+        return findMatching(query, previous, () -> false);
+    }
+
+    // Throws CancellationException once cancelled reports true.
+    public SearchResult findMatching(SearchQuery query, SearchResult previous, BooleanSupplier cancelled) {
+        return cache.search(query, previous, cancelled);
+    }
+
+    // Machines with either address in a CIDR block (10.12.4.0/22), a range (10.0.0.1-10.0.0.50) or equal to one
+    // address, in table order.
+    public List<MachineSnapshot> findByIpv4(String range) {
+        Ipv4Range parsed = Ipv4Range.parse(range)
+                .orElseThrow(() -> new IllegalArgumentException("Plage IPv4 invalide"));
+        return findMatching(new SearchQuery.Ipv4(parsed), Integer.MAX_VALUE);
+    }
+
+    // Machines with this MAC, or any MAC of this vendor prefix, on either interface; any notation is accepted.
+    public List<MachineSnapshot> findByMac(String macOrPrefix) {
+        MacRange parsed = MacRange.parse(macOrPrefix)
+                .orElseThrow(() -> new IllegalArgumentException("Adresse MAC invalide"));
+        return findMatching(new SearchQuery.Mac(parsed), Integer.MAX_VALUE);
     }
 
-    public List<Machine> findAll() {
-        return machineDao.findAll();
+    // "Did you mean": host names and serial numbers within one or two typos of the text, nearest first.
+    public List<String> suggestSimilar(String text, int limit) {
+        return cache.suggest(text, limit).stream()
+                .map(FuzzyIndex.Suggestion::value)
+                .toList();
+    }
+
+    // The first matches in table order.
+    public List<MachineSnapshot> findMatching(SearchQuery query, int limit) {
+        return findMatching(query, null, () -> false, limit).machines();
+    }
+
+    // Same, refining the previous result like findMatching(query, previous, cancelled). Until the inventory is
+    // loaded, a query SearchPushdown can translate is answered by the database instead of loading every row.
+    public SearchPage findMatching(SearchQuery query, SearchResult previous, BooleanSupplier cancelled, int limit) {
+        SearchCriteria criteria = cache.loaded() == null ? SearchPushdown.criteria(query, limit) : null;
+        if (criteria != null) {
+            return searchDatabase(query, criteria);
+        }
+        SearchResult result = findMatching(query, previous, cancelled);
+        InventorySnapshot inventory = snapshot();
+        List<MachineSnapshot> matching = new ArrayList<>(result.size());
+        result.ids().forEach(id -> inventory.findById(id).ifPresent(matching::add));
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Recherche remplacee");
+        }
+        matching.sort(InventorySnapshot.ORDER);
+        return new SearchPage(result, matching.size() > limit ? matching.subList(0, limit) : matching);
+    }
+
+    // Paging never loads the inventory: until a search or findAll has, each page is read from the database.
+    public List<MachineSnapshot> findPage(String afterNomReseau, Long afterId, int limit) {
+        InventorySnapshot loaded = cache.loaded();
+        if (loaded != null) {
+            return loaded.pageAfter(afterNomReseau, afterId, limit);
+        }
+        return machineDao.findPage(afterNomReseau, afterId, limit).stream().map(MachineSnapshot::of).toList();
+    }
+
+    public long count() {
+        InventorySnapshot loaded = cache.loaded();
+        return loaded != null ? loaded.size() : machineDao.count();
+    }
+
+    // Callers keep the returned syncPoint for their next call; since is what they are known to have seen.
+    public MachineChanges findModifiedSince(long since) {
+        handedOutSyncPoint = since;
+        return machineDao.findModifiedSince(since);
+    }
+
+    public long latestChange() {
+        long latest = machineDao.latestChange();
+        handedOutSyncPoint = latest;
+        return latest;
+    }
+
+    // Tells the database which changes this instance has seen, so tombstones every instance has seen are deleted.
+    void pruneTombstones() {
+        long seen = oldestSyncPoint(handedOutSyncPoint, cache.syncPoint());
+        if (seen < 0) {
+            return;
+        }
+        int pruned = machineDao.pruneTombstones(clientId, seen);
+        if (pruned > 0) {
+            LOGGER.info(pruned + " tombstones of deleted machines pruned");
+        }
+    }
+
+    // -1 when neither is set.
+    private static long oldestSyncPoint(long left, long right) {
+        if (left < 0 || right < 0) {
+            return Math.max(left, right);
+        }
+        return Math.min(left, right);
+    }
+
+    // Words alone go through the ranked full-text search, so the best matches fill the limit; with field filters
+    // they are ANDed in one query. Words match on word prefixes here, not anywhere in a value as in the snapshot,
+    // so callers search again once the inventory is loaded.
+    private SearchPage searchDatabase(SearchQuery query, SearchCriteria criteria) {
+        List<Machine> rows = criteria.hasFieldFilters()
+                ? machineDao.search(criteria)
+                : machineDao.searchFullText(criteria.text(), criteria.limit());
+        List<MachineSnapshot> matching = rows.stream()
+                .map(MachineSnapshot::of)
+                .sorted(InventorySnapshot.ORDER)
+                .toList();
+        long[] ids = matching.stream().mapToLong(MachineSnapshot::id).toArray();
+        return new SearchPage(new SearchResult(SearchResult.NO_SNAPSHOT, query, ids), matching);
     }
 
     public Machine create(Machine machine) {
         validate(machine, null);
-        machine.setDateModif(LocalDateTime.now());
-        return machineDao.save(machine);
+        machine.setDateModif(now());
+        Machine saved = writeThrough(() -> machineDao.save(machine));
+        cache.apply(List.of(saved), List.of());
+        return saved;
     }
 
     public Machine update(Machine machine) {
@@ -31,46 +284,55 @@ public class MachineService {
             throw new IllegalArgumentException("L'ID est obligatoire pour une mise a jour");
         }
         validate(machine, machine.getId());
-        machine.setDateModif(LocalDateTime.now());
-        return machineDao.update(machine);
+        machine.setDateModif(now());
+        Machine updated = writeThrough(() -> machineDao.update(machine));
+        cache.apply(List.of(updated), List.of());
+        return updated;
     }
 
     public void delete(long id) {
         machineDao.delete(id);
+        cache.apply(List.of(), List.of(id));
     }
 
+    public BatchResult createAll(List<Machine> machines) {
+        return runBatch(machines, false);
+    }
+
+    public BatchResult updateAll(List<Machine> machines) {
+        return runBatch(machines, true);
+    }
+
+    public int deleteAll(Collection<Long> ids) {
+        int deleted = machineDao.deleteAll(ids);
+        cache.apply(List.of(), ids);
+        return deleted;
+    }
+
+    // The unique index still has the last word when the row is written.
     public boolean isNomReseauTaken(String nomReseau, Long excludeId) {
         String value = Objects.toString(nomReseau, "").trim();
         if (value.isEmpty()) {
             return false;
         }
-        return machineDao.existsNomReseau(value, excludeId);
+        return nomReseauTaken(value, excludeId);
     }
 
-    public boolean matches(Machine machine, String searchText) {
+    // Answered from the snapshot when one is loaded; a cold cache asks the database rather than loading everything.
+    private boolean nomReseauTaken(String nomReseau, Long excludeId) {
+        InventorySnapshot loaded = cache.loaded();
+        if (loaded != null) {
+            return loaded.isNomReseauTaken(nomReseau, excludeId);
+        }
+        return machineDao.existsNomReseau(nomReseau, excludeId);
+    }
+
+    public boolean matches(MachineSnapshot machine, String searchText) {
         if (searchText == null || searchText.isBlank()) {
             return true;
         }
 
-        String needle = searchText.toLowerCase(Locale.ROOT).trim();
-        return contains(machine.getNomReseau(), needle)
-                || contains(machine.getSerieNmb(), needle)
-                || contains(machine.getModel(), needle)
-                || contains(machine.getUtilisateur(), needle)
-                || contains(machine.getEmplacement(), needle)
-                || contains(machine.getSite(), needle)
-                || contains(machine.getLieu(), needle)
-                || contains(machine.getIpv4RJ45(), needle)
-                || contains(machine.getIpv4Wifi(), needle)
-                || contains(machine.getMacEthernet(), needle)
-                || contains(machine.getMacWifi(), needle)
-                || contains(machine.getVlan(), needle)
-                || contains(machine.getStatut(), needle)
-                || contains(machine.getNote(), needle)
-                || contains(machine.getPurchaseDate(), needle)
-                || contains(machine.getDateMiseEnService(), needle)
-                || contains(machine.getDateModif(), needle)
-                || contains(Boolean.toString(machine.isGarantie()), needle);
+        return new SearchQuery.Text(searchText).test(machine);
     }
 
     private void validate(Machine machine, Long excludeId) {
@@ -83,14 +345,112 @@ public class MachineService {
             throw new IllegalArgumentException("NomReseau est obligatoire");
         }
 
-        if (machineDao.existsNomReseau(nomReseau, excludeId)) {
+        if (nomReseauTaken(nomReseau, excludeId)) {
             throw new IllegalArgumentException("NomReseau existe deja");
         }
 
         machine.setNomReseau(nomReseau);
     }
 
-    private boolean contains(Object value, String needle) {
-        return value != null && value.toString().toLowerCase(Locale.ROOT).contains(needle);
+    private BatchResult runBatch(List<Machine> machines, boolean update) {
+        List<BatchResult.Failure> failures = new ArrayList<>();
+        List<Machine> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        Map<String, Integer> namesInBatch = new HashMap<>();
+
+        for (int i = 0; i < machines.size(); i++) {
+            Machine machine = machines.get(i);
+            String error = validateForBatch(machine, update);
+            if (error == null) {
+                String key = TextFolding.foldNoCase(machine.getNomReseau());
+                if (namesInBatch.putIfAbsent(key, i) != null) {
+                    error = "NomReseau en double dans le lot";
+                }
+            }
+            if (error != null) {
+                failures.add(new BatchResult.Failure(i, machine, error));
+                continue;
+            }
+            valid.add(machine);
+            validIndexes.add(i);
+        }
+
+        // One lookup for the whole batch instead of one existsNomReseau per row.
+        Map<String, Long> existing = valid.isEmpty()
+                ? Map.of()
+                : machineDao.findIdsByNomReseau(valid.stream().map(Machine::getNomReseau).toList());
+        List<Machine> toWrite = new ArrayList<>();
+        List<Integer> toWriteIndexes = new ArrayList<>();
+        LocalDateTime now = now();
+        for (int i = 0; i < valid.size(); i++) {
+            Machine machine = valid.get(i);
+            Long ownerId = existing.get(TextFolding.foldNoCase(machine.getNomReseau()));
+            if (ownerId != null && !ownerId.equals(machine.getId())) {
+                failures.add(new BatchResult.Failure(validIndexes.get(i), machine, "NomReseau existe deja"));
+                continue;
+            }
+            machine.setDateModif(now);
+            toWrite.add(machine);
+            toWriteIndexes.add(validIndexes.get(i));
+        }
+
+        if (toWrite.isEmpty()) {
+            return new BatchResult(List.of(), sortByIndex(failures));
+        }
+        BatchResult written = update ? machineDao.updateAll(toWrite) : machineDao.saveAll(toWrite);
+        cache.apply(written.succeeded(), List.of());
+        for (BatchResult.Failure failure : written.failures()) {
+            failures.add(new BatchResult.Failure(
+                    toWriteIndexes.get(failure.index()), failure.machine(), failure.message()));
+        }
+        return new BatchResult(written.succeeded(), sortByIndex(failures));
+    }
+
+    // A rejected write means the snapshot may have missed a change made elsewhere (a name taken or a row deleted
+    // by another instance); the snapshot catches up now instead of waiting for the next check.
+    private Machine writeThrough(Supplier<Machine> write) {
+        try {
+            return write.get();
+        } catch (IllegalArgumentException e) {
+            try {
+                cache.catchUp();
+            } catch (RuntimeException catchUpError) {
+                e.addSuppressed(catchUpError);
+            }
+            throw e;
+        }
+    }
+
+    // DateModif is stored to the second; the cached copy must match what a reload would read.
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private String validateForBatch(Machine machine, boolean update) {
+        if (machine == null) {
+            return "Machine invalide";
+        }
+        if (update && machine.getId() == null) {
+            return "L'ID est obligatoire pour une mise a jour";
+        }
+        String nomReseau = Objects.toString(machine.getNomReseau(), "").trim();
+        if (nomReseau.isEmpty()) {
+            return "NomReseau est obligatoire";
+        }
+        machine.setNomReseau(nomReseau);
+        return null;
+    }
+
+    private List<BatchResult.Failure> sortByIndex(List<BatchResult.Failure> failures) {
+        failures.sort(Comparator.comparingInt(BatchResult.Failure::index));
+        return failures;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (changeMonitor != null) {
+            changeMonitor.shutdownNow();
+            changeMonitor = null;
+        }
     }
 }
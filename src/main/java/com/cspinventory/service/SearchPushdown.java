@@ -0,0 +1,70 @@
+package com.cspinventory.service;
+
+import com.cspinventory.model.SearchCriteria;
+import com.cspinventory.search.SearchField;
+import com.cspinventory.search.SearchQuery;
+import com.cspinventory.search.ValuePattern;
+import com.cspinventory.util.EmplacementCatalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Translates the search box queries the database can answer into SearchCriteria: words, plus exact site:, lieu:
+// and garantie: terms ANDed together. Words become full-text prefix terms and a site or lieu must be spelled as
+// in EmplacementCatalog, the values the form stores, so the equality can use idx_machines_site / idx_machines_lieu.
+// Anything else (OR, NOT, wildcards, the other fields) returns null and is answered from the snapshot.
+final class SearchPushdown {
+
+    private SearchPushdown() {
+    }
+
+    static SearchCriteria criteria(SearchQuery query, int limit) {
+        // A whole MAC typed alone: the full-text search also looks it up by its key.
+        if (query instanceof SearchQuery.Or or && or.terms().size() == 2
+                && or.terms().get(0) instanceof SearchQuery.Text text && or.terms().get(1) instanceof SearchQuery.Mac) {
+            return SearchCriteria.ofText(text.needle(), limit);
+        }
+        List<SearchQuery> terms = query instanceof SearchQuery.And and ? and.terms() : List.of(query);
+        List<String> words = new ArrayList<>();
+        String site = null;
+        String lieu = null;
+        Boolean garantie = null;
+        for (SearchQuery term : terms) {
+            if (term instanceof SearchQuery.Text text) {
+                words.add(text.needle());
+                continue;
+            }
+            if (!(term instanceof SearchQuery.Field field) || !field.pattern().isExact()) {
+                return null;
+            }
+            if (field.field() == SearchField.SITE && site == null) {
+                site = catalogValue(field.pattern(), EmplacementCatalog.SITES);
+                if (site == null) {
+                    return null;
+                }
+            } else if (field.field() == SearchField.LIEU && lieu == null) {
+                lieu = catalogValue(field.pattern(), EmplacementCatalog.LIEUX_PAR_SITE.values().stream()
+                        .flatMap(Collection::stream)
+                        .toList());
+                if (lieu == null) {
+                    return null;
+                }
+            } else if (field.field() == SearchField.GARANTIE && garantie == null) {
+                String value = field.pattern().toString();
+                if (!value.equals("true") && !value.equals("false")) {
+                    return null;
+                }
+                garantie = value.equals("true");
+            } else {
+                return null;
+            }
+        }
+        SearchCriteria criteria = new SearchCriteria(String.join(" ", words), site, lieu, garantie, limit);
+        return criteria.text() == null && !criteria.hasFieldFilters() ? null : criteria;
+    }
+
+    private static String catalogValue(ValuePattern pattern, List<String> values) {
+        return values.stream().filter(pattern::matches).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.cspinventory.util;
+
+import java.util.regex.Pattern;
+
+public final class NetworkAddresses {
+
+    public static final Pattern IPV4_PATTERN = Pattern.compile(
+            "^(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\."
+                    + "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\."
+                    + "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\."
+                    + "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)$"
+    );
+    public static final Pattern MAC_PATTERN = Pattern.compile("^([0-9A-Fa-f]{2}([-:])){5}[0-9A-Fa-f]{2}$");
+
+    private NetworkAddresses() {
+    }
+
+    public static boolean isValidIPv4(String value) {
+        return value == null || IPV4_PATTERN.matcher(value).matches();
+    }
+
+    // The address as an unsigned 32-bit value (0 to 2^32 - 1), or -1 when it is not a valid IPv4.
+    public static long parseIPv4(String value) {
+        if (value == null || !IPV4_PATTERN.matcher(value.trim()).matches()) {
+            return -1;
+        }
+        long packed = 0;
+        int octet = 0;
+        for (char c : value.trim().toCharArray()) {
+            if (c == '.') {
+                packed = (packed << 8) | octet;
+                octet = 0;
+            } else {
+                octet = octet * 10 + (c - '0');
+            }
+        }
+        return (packed << 8) | octet;
+    }
+
+    public static String formatIPv4(long packed) {
+        return ((packed >>> 24) & 0xFF) + "." + ((packed >>> 16) & 0xFF) + "." + ((packed >>> 8) & 0xFF) + "."
+                + (packed & 0xFF);
+    }
+
+    public static boolean isValidMacAddress(String value) {
+        return value == null || MAC_PATTERN.matcher(value).matches();
+    }
+
+    // The 48-bit value of a MAC in any common notation (AA:BB:CC:DD:EE:FF, aa-bb-..., aabb.ccdd.eeff as in switch
+    // logs, or bare hex), or -1 when it is not one.
+    public static long parseMac(String value) {
+        return parseHexDigits(value, 12);
+    }
+
+    // The 24-bit vendor prefix (OUI) written as the first three bytes, e.g. 00:1A:2B or 001a2b, or -1.
+    public static long parseOui(String value) {
+        return parseHexDigits(value, 6);
+    }
+
+    public static String formatMac(long mac) {
+        StringBuilder text = new StringBuilder(17);
+        for (int shift = 40; shift >= 0; shift -= 8) {
+            if (shift < 40) {
+                text.append(':');
+            }
+            text.append(String.format("%02X", (mac >>> shift) & 0xFF));
+        }
+        return text.toString();
+    }
+
+    // Hex digits of value, skipping ':', '-', '.' and spaces, when there are exactly the expected number of them.
+    private static long parseHexDigits(String value, int digits) {
+        if (value == null) {
+            return -1;
+        }
+        long result = 0;
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ':' || c == '-' || c == '.' || c == ' ') {
+                continue;
+            }
+            int digit = c < 128 ? Character.digit(c, 16) : -1;
+            if (digit < 0 || ++count > digits) {
+                return -1;
+            }
+            result = (result << 4) | digit;
+        }
+        return count == digits ? result : -1;
+    }
+}
@@ -0,0 +1,62 @@
+package com.cspinventory.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Search keys: lower case without accents, so "reception" finds "Réception" and "CAFETÉRIA" finds "cafeteria".
+// The in-memory indexes hold values folded once per write; queries are folded the same way.
+public final class TextFolding {
+
+    private TextFolding() {
+    }
+
+    public static String fold(String value) {
+        if (value == null) {
+            return null;
+        }
+        boolean lowerAscii = true;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return foldUnicode(value);
+            }
+            lowerAscii &= c < 'A' || c > 'Z';
+        }
+        return lowerAscii ? value : value.toLowerCase(Locale.ROOT);
+    }
+
+    // NomReseau keys, folded like SQLite's NOCASE collation behind the unique index: only ASCII letters, so
+    // "PC-É" and "pc-é" stay two names. Not for search, where fold() also drops accents.
+    public static String foldNoCase(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c >= 'A' && c <= 'Z') {
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return new String(chars);
+    }
+
+    // NFD splits "é" into "e" and a combining accent, which is then dropped. Ligatures have no decomposition.
+    private static String foldUnicode(String value) {
+        String decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            switch (Character.getType(c)) {
+                case Character.NON_SPACING_MARK, Character.ENCLOSING_MARK, Character.COMBINING_SPACING_MARK -> {
+                }
+                default -> {
+                    switch (c) {
+                        case 'œ' -> folded.append("oe");
+                        case 'æ' -> folded.append("ae");
+                        case 'ß' -> folded.append("ss");
+                        default -> folded.append(c);
+                    }
+                }
+            }
+        }
+        return folded.toString();
+    }
+}
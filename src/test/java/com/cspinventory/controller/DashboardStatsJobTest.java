@@ -0,0 +1,101 @@
+package com.cspinventory.controller;
+
+import com.cspinventory.search.SearchQuery;
+import com.cspinventory.search.SearchResult;
+import com.cspinventory.service.InventorySummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DashboardStatsJobTest {
+
+    @Test
+    void coalescesRequestsAndPublishesOnlyTheLatestRun() {
+        TaskQueue worker = new TaskQueue();
+        TaskQueue fxThread = new TaskQueue();
+        SearchResult[] shown = {result(1, 2)};
+        List<InventorySummary> published = new ArrayList<>();
+        DashboardStatsJob job = new DashboardStatsJob(() -> shown[0], DashboardStatsJobTest::counted, worker,
+                fxThread, published::add);
+
+        // Several changes within one FX event start a single run over the search as it is once it starts.
+        job.request();
+        job.request();
+        shown[0] = result(1, 2, 3);
+        fxThread.runAll();
+        assertEquals(1, worker.size());
+        worker.runAll();
+        fxThread.runAll();
+        assertEquals(1, published.size());
+        assertEquals(3, published.get(0).count());
+
+        // A run superseded before it reports is cancelled, and its result would be dropped anyway.
+        job.request();
+        fxThread.runAll();
+        shown[0] = result(2, 3);
+        job.request();
+        fxThread.runAll();
+        assertEquals(2, worker.size());
+        worker.runAll();
+        fxThread.runAll();
+        assertEquals(2, published.size());
+        assertEquals(2, published.get(1).count());
+    }
+
+    @Test
+    void unfilteredViewPublishesWithoutCounting() {
+        TaskQueue worker = new TaskQueue();
+        TaskQueue fxThread = new TaskQueue();
+        List<InventorySummary> published = new ArrayList<>();
+        published.add(InventorySummary.EMPTY);
+        DashboardStatsJob job = new DashboardStatsJob(() -> null, DashboardStatsJobTest::counted, worker, fxThread,
+                published::add);
+
+        job.request();
+        fxThread.runAll();
+        assertEquals(0, worker.size());
+        assertEquals(2, published.size());
+        assertNull(published.get(1));
+    }
+
+    private static SearchResult result(long... ids) {
+        return new SearchResult(1, SearchQuery.parse("pc"), ids);
+    }
+
+    // Stands in for MachineService.summarize: only the count is filled in.
+    private static InventorySummary counted(SearchResult result, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Statistiques remplacees");
+        }
+        return new InventorySummary(result.size(), 0, 0, 0, 0, 0, 0, 0, 0, List.of(), List.of(), null);
+    }
+
+    // Runs the submitted tasks only when asked, in order.
+    private static final class TaskQueue implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int size() {
+            return tasks.size();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.cspinventory.dao;
+
+import com.cspinventory.model.Machine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseManagerTest {
+
+    private static final int LATEST_VERSION = 6;
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager manager;
+
+    @AfterEach
+    void closeDatabase() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    @Test
+    void initializeMigratesUnversionedLegacyDatabases() throws Exception {
+        Path dbPath = tempDir.resolve("legacy.db");
+        try (Connection connection = new Database(dbPath).connect(); Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE Machine (
+                        Id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        NomReseau TEXT NOT NULL UNIQUE,
+                        SerieNmb TEXT, Model TEXT, Utilisateur TEXT, Emplacement TEXT, Site TEXT, Lieu TEXT,
+                        IPv4RJ45 TEXT, IPv4Wifi TEXT, MACEthernet TEXT, MACWifi TEXT, VLAN TEXT,
+                        Garantie INTEGER NOT NULL DEFAULT 0,
+                        Statut TEXT, Note TEXT, PurchaseDate TEXT, DateMiseEnService TEXT
+                    )
+                    """);
+            statement.execute("CREATE INDEX idx_machines_nomreseau ON Machine (NomReseau)");
+            statement.execute("INSERT INTO Machine (NomReseau, Site, Statut) VALUES ('PC-OLD', 'Site A', 'Ok')");
+        }
+
+        manager = new DatabaseManager(dbPath.toString());
+        manager.initialize();
+        manager.initialize();
+
+        SQLiteMachineDao dao = new SQLiteMachineDao(manager);
+        Machine machine = dao.findAll().get(0);
+        assertEquals("PC-OLD", machine.getNomReseau());
+        assertEquals(LATEST_VERSION, userVersion());
+        assertFalse(indexes().contains("idx_machines_nomreseau"));
+        assertTrue(indexes().contains("idx_machines_nomreseau_nocase"));
+        assertTrue(dao.existsNomReseau("pc-old", null));
+    }
+
+    @Test
+    void nomReseauIsUniqueIgnoringCase() {
+        SQLiteMachineDao dao = newDao();
+        dao.save(machine("PC-ONE"));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> dao.save(machine("pc-one")));
+        assertTrue(error.getCause().getMessage().contains("UNIQUE"));
+        assertEquals(1, dao.count());
+    }
+
+    @Test
+    void existsNomReseauSeeksTheNocaseIndex() throws Exception {
+        newDao();
+        String plan = queryPlan("SELECT COUNT(1) FROM Machines WHERE NomReseau COLLATE NOCASE = 'pc-1' AND rowid <> 1");
+
+        assertTrue(plan.contains("SEARCH"), plan);
+        assertTrue(plan.contains("idx_machines_nomreseau_nocase"), plan);
+    }
+
+    @Test
+    void caseVariantDuplicatesFallBackToANonUniqueIndex() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("DROP INDEX idx_machines_nomreseau_nocase");
+            statement.execute("INSERT INTO Machines (NomReseau) VALUES ('PC-DUP'), ('pc-dup')");
+            statement.execute("PRAGMA user_version = 2");
+        }
+
+        manager.initialize();
+
+        assertEquals(LATEST_VERSION, userVersion());
+        assertTrue(indexes().contains("idx_machines_nomreseau_nocase"));
+        assertTrue(dao.existsNomReseau("Pc-Dup", null));
+    }
+
+    @Test
+    void legacyDateFormatsAreNormalized() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("INSERT INTO Machines (NomReseau, PurchaseDate, DateMiseEnService, DateModif) VALUES "
+                    + "('PC-1', '10.01.2024', '2024-01-15', '1704877200000'), "
+                    + "('PC-2', 'bientot', '  ', '10.01.2024 08:30'), "
+                    + "('PC-3', '2024-01-10', NULL, '2024-01-10 08:30:00')");
+            statement.execute("PRAGMA user_version = 3");
+        }
+
+        manager.initialize();
+
+        List<String> rows = new ArrayList<>();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT PurchaseDate, DateMiseEnService, DateModif FROM Machines ORDER BY NomReseau")) {
+            while (rs.next()) {
+                rows.add(rs.getString(1) + "|" + rs.getString(2) + "|" + rs.getString(3));
+            }
+        }
+        String epochModif = StoredDates.formatDateTime(StoredDates.parseLegacyDateTime("1704877200000"));
+        assertEquals(List.of(
+                "2024-01-10|2024-01-15|" + epochModif,
+                "bientot|null|2024-01-10 08:30:00",
+                "2024-01-10|null|2024-01-10 08:30:00"
+        ), rows);
+        assertEquals(3, dao.findAll().size());
+    }
+
+    @Test
+    void storedMacAddressesGetNumericKeys() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("INSERT INTO Machines (NomReseau, MACEthernet, MACWifi) VALUES "
+                    + "('PC-1', '00:1a:2b:3c:4d:5e', '001A.2B3C.4D5F'), "
+                    + "('PC-2', 'pas de carte', NULL)");
+            statement.execute("DROP INDEX idx_machines_macethernetkey");
+            statement.execute("DROP INDEX idx_machines_macwifikey");
+            statement.execute("ALTER TABLE Machines DROP COLUMN MACEthernetKey");
+            statement.execute("ALTER TABLE Machines DROP COLUMN MACWifiKey");
+            statement.execute("PRAGMA user_version = 5");
+        }
+
+        manager.initialize();
+
+        List<String> rows = new ArrayList<>();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT MACEthernetKey, MACWifiKey FROM Machines ORDER BY NomReseau")) {
+            while (rs.next()) {
+                rows.add(rs.getObject(1) + "|" + rs.getObject(2));
+            }
+        }
+        assertEquals(List.of(0x001A2B3C4D5EL + "|" + 0x001A2B3C4D5FL, "null|null"), rows);
+        assertTrue(indexes().contains("idx_machines_macethernetkey"));
+        assertEquals(List.of("PC-1"), dao.searchFullText("00-1A-2B-3C-4D-5F", 10).stream()
+                .map(Machine::getNomReseau).toList());
+    }
+
+    @Test
+    void failedMigrationIsRolledBack() throws Exception {
+        Path dbPath = tempDir.resolve("migrator.db");
+        SchemaMigrator migrator = new SchemaMigrator(List.of(
+                new SchemaMigration(1, "table", connection -> execute(connection, "CREATE TABLE Sample (Id INTEGER)")),
+                new SchemaMigration(2, "broken", connection -> {
+                    execute(connection, "ALTER TABLE Sample ADD COLUMN Name TEXT");
+                    execute(connection, "ALTER TABLE Missing ADD COLUMN Name TEXT");
+                })
+        ));
+
+        try (Connection connection = new Database(dbPath).connect()) {
+            assertThrows(SQLException.class, () -> migrator.migrate(connection));
+            assertEquals(1, SchemaMigrator.currentVersion(connection));
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("PRAGMA table_info('Sample')")) {
+                int columns = 0;
+                while (rs.next()) {
+                    columns++;
+                }
+                assertEquals(1, columns);
+            }
+        }
+    }
+
+    private SQLiteMachineDao newDao() {
+        manager = new DatabaseManager(tempDir.resolve("test.db").toString());
+        manager.initialize();
+        return new SQLiteMachineDao(manager);
+    }
+
+    private int userVersion() throws SQLException {
+        try (PooledConnection conn = manager.getConnection()) {
+            return SchemaMigrator.currentVersion(conn.connection());
+        }
+    }
+
+    private List<String> indexes() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'index'")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private String queryPlan(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString("detail")).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Machine machine(String nomReseau) {
+        Machine machine = new Machine();
+        machine.setNomReseau(nomReseau);
+        machine.setStatut("Ok");
+        return machine;
+    }
+}
@@ -0,0 +1,55 @@
+package com.cspinventory.dao;
+
+import com.cspinventory.model.Machine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Run with: mvn -Pbenchmark test -Dtest=SQLiteMachineDaoBenchmark
+class SQLiteMachineDaoBenchmark {
+
+    private static final int EDITS = 10_000;
+    private static final int WARMUP_EDITS = 1_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void consecutiveEditsWithAndWithoutStatementCache() {
+        long uncached = runEdits(tempDir.resolve("uncached.db"), 0);
+        long cached = runEdits(tempDir.resolve("cached.db"), 32);
+
+        System.out.printf("%d edits (existsNomReseau + update), no statement cache: %d ms%n", EDITS, uncached);
+        System.out.printf("%d edits (existsNomReseau + update), statement cache:    %d ms%n", EDITS, cached);
+    }
+
+    private long runEdits(Path dbPath, int statementCacheSize) {
+        try (DatabaseManager manager = new DatabaseManager(dbPath.toString(), statementCacheSize)) {
+            manager.initialize();
+            SQLiteMachineDao dao = new SQLiteMachineDao(manager);
+            Machine machine = new Machine();
+            machine.setNomReseau("PC-BENCH");
+            machine.setStatut("Ok");
+            dao.save(machine);
+
+            edit(dao, machine, WARMUP_EDITS);
+            long start = System.nanoTime();
+            edit(dao, machine, EDITS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            System.out.println("  " + manager.getPoolStats());
+            return elapsed;
+        }
+    }
+
+    private void edit(SQLiteMachineDao dao, Machine machine, int count) {
+        for (int i = 0; i < count; i++) {
+            machine.setNote("edit " + i);
+            if (!dao.existsNomReseau(machine.getNomReseau(), machine.getId())) {
+                dao.update(machine);
+            }
+        }
+    }
+}
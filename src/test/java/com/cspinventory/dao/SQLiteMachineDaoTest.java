@@ -1,12 +1,24 @@
 package com.cspinventory.dao;
 
 import com.cspinventory.model.Machine;
+import com.cspinventory.model.SearchCriteria;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -19,6 +31,15 @@ class SQLiteMachineDaoTest {
     @TempDir
     Path tempDir;
 
+    private DatabaseManager manager;
+
+    @AfterEach
+    void closeDatabase() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
     @Test
     void saveFindUpdateDeleteFlow() {
         SQLiteMachineDao dao = newDao();
@@ -57,6 +78,278 @@ class SQLiteMachineDaoTest {
         assertFalse(dao.existsNomReseau("pc-zzz", null));
     }
 
+    @Test
+    void saveAllCommitsValidRowsAndReportsUniqueViolations() {
+        SQLiteMachineDao dao = newDao();
+        dao.save(sampleMachine("PC-EXISTING"));
+
+        List<Machine> batch = List.of(sampleMachine("PC-B1"), sampleMachine("PC-EXISTING"), sampleMachine("PC-B2"));
+        BatchResult result = dao.saveAll(batch);
+
+        assertEquals(2, result.succeeded().size());
+        assertEquals(1, result.failures().size());
+        assertEquals(1, result.failures().get(0).index());
+        assertEquals("NomReseau existe deja", result.failures().get(0).message());
+        assertNotNull(batch.get(0).getId());
+        assertNotNull(batch.get(2).getId());
+        assertEquals(3, dao.findAll().size());
+
+        assertEquals(Map.of("pc-b1", batch.get(0).getId()), dao.findIdsByNomReseau(List.of("pc-B1", "PC-NONE")));
+        assertEquals(2, dao.deleteAll(List.of(batch.get(0).getId(), batch.get(2).getId())));
+        assertEquals(1, dao.findAll().size());
+    }
+
+    @Test
+    void streamAllReadsRowsInOrderAndReleasesTheConnectionOnClose() {
+        SQLiteMachineDao dao = newDao();
+        dao.save(sampleMachine("pc-b"));
+        dao.save(sampleMachine("PC-A"));
+        dao.save(sampleMachine("PC-C"));
+
+        try (Stream<Machine> stream = dao.streamAll(2)) {
+            assertEquals(List.of("PC-A", "pc-b", "PC-C"), stream.map(Machine::getNomReseau).toList());
+            assertEquals(1, manager.getPoolStats().inUse());
+        }
+        assertEquals(0, manager.getPoolStats().inUse());
+    }
+
+    @Test
+    void findPageWalksTheInventoryWithKeysetPagination() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        // Databases that held case-variant names before the unique index keep a non-unique one; ties sort by rowid.
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("DROP INDEX idx_machines_nomreseau_nocase");
+            statement.execute("CREATE INDEX idx_machines_nomreseau_nocase ON Machines (NomReseau COLLATE NOCASE)");
+        }
+        for (String name : List.of("pc-c", "PC-A", "pc-a", "PC-B", "PC-D")) {
+            dao.save(sampleMachine(name));
+        }
+
+        List<String> seen = new ArrayList<>();
+        List<Machine> page = dao.findPage(null, null, 2);
+        while (!page.isEmpty()) {
+            page.forEach(machine -> seen.add(machine.getNomReseau()));
+            Machine last = page.get(page.size() - 1);
+            page = dao.findPage(last.getNomReseau(), last.getId(), 2);
+        }
+
+        assertEquals(List.of("PC-A", "pc-a", "PC-B", "pc-c", "PC-D"), seen);
+        assertEquals(5, dao.count());
+    }
+
+    @Test
+    void fullTextSearchUsesPrefixesAndFollowsWrites() {
+        SQLiteMachineDao dao = newDao();
+        Machine reception = sampleMachine("PC-RECEP-01");
+        reception.setLieu("Réception");
+        reception.setIpv4RJ45("10.12.4.20");
+        dao.save(reception);
+        Machine noted = sampleMachine("PC-OTHER");
+        noted.setNote("remplace PC-RECEP-01");
+        dao.save(noted);
+
+        assertEquals(List.of("PC-RECEP-01", "PC-OTHER"), names(dao.searchFullText("recep", 10)));
+        assertEquals(List.of("PC-RECEP-01"), names(dao.searchFullText("reception 10.12.4", 10)));
+        assertEquals(List.of(), names(dao.searchFullText("\"unbalanced", 10)));
+
+        reception.setLieu("Cafeteria");
+        dao.update(reception);
+        assertEquals(List.of("PC-RECEP-01"), names(dao.searchFullText("cafet", 10)));
+        dao.delete(reception.getId());
+        assertEquals(List.of("PC-OTHER"), names(dao.searchFullText("recep", 10)));
+    }
+
+    @Test
+    void searchCombinesFieldFiltersWithFullTextTerms() {
+        SQLiteMachineDao dao = newDao();
+        Machine first = sampleMachine("PC-RECEP-02");
+        first.setSite("Bienne");
+        dao.save(first);
+        Machine second = sampleMachine("PC-RECEP-01");
+        second.setSite("Bienne");
+        second.setGarantie(true);
+        dao.save(second);
+        dao.save(sampleMachine("PC-RECEP-03"));
+        Machine other = sampleMachine("PC-OTHER");
+        other.setSite("Bienne");
+        dao.save(other);
+
+        assertEquals(List.of("PC-RECEP-01", "PC-RECEP-02"),
+                names(dao.search(new SearchCriteria("recep", "Bienne", null, null, 50))));
+        assertEquals(List.of("PC-RECEP-01"), names(dao.search(new SearchCriteria("recep", "Bienne", null, true, 50))));
+        assertEquals(List.of("PC-OTHER", "PC-RECEP-01"),
+                names(dao.search(new SearchCriteria(null, "Bienne", "Bureau", null, 2))));
+        assertEquals(List.of(), names(dao.search(new SearchCriteria("recep", "Bienne", "Salle A", null, 50))));
+    }
+
+    @Test
+    void fullTextSearchOfAMacAddressAlsoMatchesText() {
+        SQLiteMachineDao dao = newDao();
+        Machine noted = sampleMachine("PC-NOTED");
+        noted.setNote("ancienne carte 001a2b3c4d5e");
+        dao.save(noted);
+        Machine typed = sampleMachine("PC-TYPED");
+        typed.setMacEthernet("00:1A:2B:3C:4D:5E");
+        dao.save(typed);
+
+        assertEquals(List.of("PC-TYPED", "PC-NOTED"), names(dao.searchFullText("001A2B3C4D5E", 10)));
+        assertEquals(List.of("PC-TYPED"), names(dao.searchFullText("001A2B3C4D5E", 1)));
+    }
+
+    @Test
+    void initializeBackfillsTheFullTextIndexOfExistingDatabases() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        dao.save(sampleMachine("PC-LEGACY"));
+        try (PooledConnection conn = manager.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute("DROP TABLE MachinesFts");
+            statement.execute("DROP TRIGGER machines_fts_ai");
+            statement.execute("DROP TRIGGER machines_fts_ad");
+            statement.execute("DROP TRIGGER machines_fts_au");
+            statement.execute("PRAGMA user_version = 1");
+        }
+
+        manager.initialize();
+
+        assertEquals(List.of("PC-LEGACY"), names(dao.searchFullText("legacy", 10)));
+    }
+
+    @Test
+    void findModifiedSinceReturnsChangedRowsAndTombstones() {
+        SQLiteMachineDao dao = newDao();
+        dao.save(sampleMachine("PC-KEPT"));
+        Machine edited = dao.save(sampleMachine("PC-EDITED"));
+        Machine removed = dao.save(sampleMachine("PC-REMOVED"));
+        long since = dao.latestChange();
+
+        // Written by a workstation whose clock is years behind: still after the sync point.
+        edited.setDateModif(LocalDateTime.of(2001, 1, 1, 9, 30));
+        dao.update(edited);
+        dao.delete(removed.getId());
+
+        MachineChanges changes = dao.findModifiedSince(since);
+        assertEquals(List.of("PC-EDITED"), names(changes.modified()));
+        assertEquals(List.of(removed.getId()), changes.deletedIds());
+        assertEquals(since + 2, changes.syncPoint());
+        assertTrue(changes.complete());
+
+        MachineChanges none = dao.findModifiedSince(changes.syncPoint());
+        assertTrue(none.isEmpty());
+        assertEquals(changes.syncPoint(), none.syncPoint());
+    }
+
+    @Test
+    void tombstonesArePrunedOnceEveryClientHasSeenThem() {
+        SQLiteMachineDao dao = newDao();
+        Machine first = dao.save(sampleMachine("PC-1"));
+        Machine second = dao.save(sampleMachine("PC-2"));
+        long start = dao.latestChange();
+        dao.delete(first.getId());
+        long afterFirst = dao.latestChange();
+        dao.delete(second.getId());
+
+        assertEquals(0, dao.pruneTombstones("behind", start));
+        assertEquals(0, dao.pruneTombstones("ahead", dao.latestChange()));
+        assertEquals(1, dao.pruneTombstones("behind", afterFirst));
+
+        assertEquals(List.of(second.getId()), dao.findModifiedSince(afterFirst).deletedIds());
+        assertFalse(dao.findModifiedSince(start).complete());
+    }
+
+    @Test
+    void dataVersionChangesOnlyForCommitsFromOtherConnections() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        long initial = dao.dataVersion();
+
+        dao.save(sampleMachine("PC-OWN"));
+        assertEquals(initial, dao.dataVersion());
+
+        try (var connection = new Database(tempDir.resolve("test.db")).connect();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO Machines (NomReseau) VALUES ('PC-OTHER')");
+        }
+        assertTrue(dao.dataVersion() != initial);
+    }
+
+    @Test
+    void connectionsAreReusedFromThePool() {
+        SQLiteMachineDao dao = newDao();
+        for (int i = 0; i < 20; i++) {
+            dao.save(sampleMachine("PC-POOL-" + i));
+            dao.existsNomReseau("PC-POOL-" + i, null);
+        }
+        dao.findAll();
+
+        PoolStats stats = manager.getPoolStats();
+        assertEquals(1, stats.created());
+        assertEquals(1, stats.idle());
+        assertEquals(0, stats.inUse());
+        assertTrue(stats.borrowed() > 20);
+
+        PoolStats writerStats = manager.getWriterPoolStats();
+        assertEquals(1, writerStats.created());
+        assertEquals(0, writerStats.inUse());
+        assertEquals(manager.getWriteQueueStats().commits(), writerStats.borrowed());
+    }
+
+    @Test
+    void preparedStatementsAreCachedPerConnection() {
+        SQLiteMachineDao dao = newDao();
+        Machine machine = dao.save(sampleMachine("PC-CACHE"));
+        for (int i = 0; i < 10; i++) {
+            machine.setNote("edit " + i);
+            dao.update(machine);
+            dao.existsNomReseau("PC-CACHE", machine.getId());
+        }
+
+        // Writes are cached on the writer connection, reads on the read connection.
+        PoolStats stats = manager.getPoolStats();
+        PoolStats writerStats = manager.getWriterPoolStats();
+        assertEquals(3, stats.statementCacheMisses() + writerStats.statementCacheMisses());
+        assertEquals(18, stats.statementCacheHits() + writerStats.statementCacheHits());
+        assertEquals("edit 9", dao.findById(machine.getId()).orElseThrow().getNote());
+    }
+
+    @Test
+    void concurrentWritesShareCommitsAndFailAlone() throws Exception {
+        SQLiteMachineDao dao = newDao();
+        dao.save(sampleMachine("PC-TAKEN"));
+        List<Callable<Object>> writes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String name = i == 100 ? "pc-taken" : "PC-WRITE-" + i;
+            writes.add(() -> dao.save(sampleMachine(name)));
+        }
+
+        List<Future<Object>> results;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results = executor.invokeAll(writes);
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            if (i == 100) {
+                ExecutionException error = assertThrows(ExecutionException.class, results.get(i)::get);
+                assertTrue(error.getCause().getCause().getMessage().contains("UNIQUE"));
+            } else {
+                assertNotNull(((Machine) results.get(i).get()).getId());
+            }
+        }
+        assertEquals(200, dao.count());
+        WriteQueueStats stats = manager.getWriteQueueStats();
+        assertEquals(201, stats.operations());
+        assertEquals(1, stats.failedOperations());
+        assertTrue(stats.commits() < stats.operations(), stats.toString());
+    }
+
+    @Test
+    void evictedConnectionsAreReopened() {
+        SQLiteMachineDao dao = newDao();
+        dao.save(sampleMachine("PC-EVICT"));
+        manager.evictConnections();
+
+        assertEquals(0, manager.getPoolStats().open());
+        assertTrue(dao.existsNomReseau("PC-EVICT", null));
+        assertEquals(2, manager.getPoolStats().created());
+    }
+
     @Test
     void updateThrowsWhenMachineDoesNotExist() {
         SQLiteMachineDao dao = newDao();
@@ -68,11 +361,15 @@ class SQLiteMachineDaoTest {
 
     private SQLiteMachineDao newDao() {
         Path dbPath = tempDir.resolve("test.db");
-        DatabaseManager manager = new DatabaseManager(dbPath.toString());
+        manager = new DatabaseManager(dbPath.toString());
         manager.initialize();
         return new SQLiteMachineDao(manager);
     }
 
+    private List<String> names(List<Machine> machines) {
+        return machines.stream().map(Machine::getNomReseau).toList();
+    }
+
     private Machine sampleMachine(String nomReseau) {
         Machine machine = new Machine();
         machine.setNomReseau(nomReseau);
@@ -0,0 +1,36 @@
+package com.cspinventory.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StoredDatesTest {
+
+    @Test
+    void fastParsersAcceptOnlyCanonicalValues() {
+        assertEquals(LocalDate.of(2024, 2, 29), StoredDates.parseIsoDate("2024-02-29"));
+        assertNull(StoredDates.parseIsoDate("2023-02-29"));
+        assertNull(StoredDates.parseIsoDate("2024-13-01"));
+        assertNull(StoredDates.parseIsoDate("10.01.2024"));
+        assertNull(StoredDates.parseIsoDate("2024-1-10"));
+
+        assertEquals(LocalDateTime.of(2024, 1, 10, 8, 5, 9), StoredDates.parseIsoDateTime("2024-01-10 08:05:09"));
+        assertNull(StoredDates.parseIsoDateTime("2024-01-10T08:05:09"));
+        assertNull(StoredDates.parseIsoDateTime("2024-01-10 24:00:00"));
+    }
+
+    @Test
+    void legacyFormatsFallBackToTheSlowParsers() {
+        assertEquals(LocalDate.of(2024, 1, 10), StoredDates.parseDate("10.01.2024"));
+        assertEquals(LocalDate.of(2024, 1, 10), StoredDates.parseDate(" 2024-01-10T12:00 "));
+        assertEquals(LocalDateTime.of(2024, 1, 10, 8, 30), StoredDates.parseDateTime("10.01.2024 08:30"));
+        assertEquals(LocalDateTime.of(2024, 1, 10, 8, 30, 15, 250_000_000),
+                StoredDates.parseDateTime("2024-01-10 08:30:15.250"));
+        assertNull(StoredDates.parseDate("bientot"));
+        assertNull(StoredDates.parseDateTime(""));
+    }
+}
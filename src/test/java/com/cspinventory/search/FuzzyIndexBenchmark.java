@@ -0,0 +1,42 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+// Run with: mvn -Pbenchmark test -Dtest=FuzzyIndexBenchmark
+class FuzzyIndexBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000};
+    // A transposition, a misread digit, a wrong letter, a dropped character and a value far from any other.
+    private static final List<String> QUERIES = List.of("pc-0004224", "pc-OO42424", "5n12345678", "sn1234567",
+            "latitude", "zzzzzzzzzz");
+    private static final int RUNS = 200;
+
+    @Test
+    void suggestionLatency() {
+        for (int size : SIZES) {
+            List<MachineSnapshot> machines = TrigramIndexBenchmark.syntheticMachines(size);
+
+            long start = System.nanoTime();
+            FuzzyIndex index = new FuzzyIndex();
+            index.rebuild(machines);
+            System.out.printf("%,d machines: sorted values packed in %d ms%n", size,
+                    (System.nanoTime() - start) / 1_000_000);
+
+            for (String query : QUERIES) {
+                List<FuzzyIndex.Suggestion> suggestions = index.suggest(query, 5);
+                for (int i = 0; i < RUNS; i++) {
+                    index.suggest(query, 5);
+                }
+                start = System.nanoTime();
+                for (int i = 0; i < RUNS; i++) {
+                    index.suggest(query, 5);
+                }
+                System.out.printf("  %-12s %9.3f ms  %s%n", "'" + query + "'",
+                        (System.nanoTime() - start) / 1_000_000.0 / RUNS, suggestions);
+            }
+        }
+    }
+}
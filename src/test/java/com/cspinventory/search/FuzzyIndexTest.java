@@ -0,0 +1,111 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FuzzyIndexTest {
+
+    @Test
+    void suggestsNearbyNamesAndSerialsIgnoringCaseAndAccents() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.rebuild(List.of(machine(1, "PC-RECEP-01", "5CG7281XYZ"), machine(2, "PC-Réception", "5CG7281XZZ"),
+                machine(3, "LAB-02", null)));
+
+        assertEquals(List.of(new FuzzyIndex.Suggestion("5CG7281XYZ", 1), new FuzzyIndex.Suggestion("5CG7281XZZ", 2)),
+                index.suggest("scg7281xyz", 5));
+        assertEquals(List.of(new FuzzyIndex.Suggestion("PC-Réception", 1)), index.suggest("pc-reseption", 5));
+        assertEquals(List.of(new FuzzyIndex.Suggestion("LAB-02", 1)), index.suggest("lab-2", 5));
+        assertEquals(List.of(), index.suggest("la", 5));
+
+        index.remove(2);
+        index.put(machine(3, "LAB-03", null));
+        assertEquals(List.of(new FuzzyIndex.Suggestion("5CG7281XYZ", 1)), index.suggest("scg7281xyz", 5));
+        assertEquals(List.of(new FuzzyIndex.Suggestion("LAB-03", 1)), index.suggest("lab-3", 5));
+    }
+
+    @Test
+    void suggestionsMatchComparingEveryValue() {
+        Random random = new Random(11);
+        Map<Long, MachineSnapshot> live = new HashMap<>();
+        List<MachineSnapshot> initial = new ArrayList<>();
+        for (long id = 1; id <= 1_500; id++) {
+            MachineSnapshot machine = machine(id, randomName(random), randomSerial(random));
+            initial.add(machine);
+            live.put(id, machine);
+        }
+        FuzzyIndex index = new FuzzyIndex();
+        index.rebuild(initial);
+        // Write-through changes on top of the bulk build, including values shared by several machines.
+        for (int i = 0; i < 600; i++) {
+            long id = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                index.remove(id);
+                live.remove(id);
+            } else {
+                MachineSnapshot machine = machine(id, randomName(random), randomSerial(random));
+                index.put(machine);
+                live.put(id, machine);
+            }
+        }
+
+        for (int i = 0; i < 60; i++) {
+            String query = i % 2 == 0 ? randomName(random) : randomSerial(random);
+            int maxDistance = query.length() <= 5 ? 1 : 2;
+            Map<String, Integer> expected = new HashMap<>();
+            for (MachineSnapshot machine : live.values()) {
+                for (String value : new String[] {machine.nomReseau(), machine.serieNmb()}) {
+                    int distance = levenshtein(query.toLowerCase(Locale.ROOT), value.toLowerCase(Locale.ROOT));
+                    if (distance <= maxDistance) {
+                        expected.put(value.toLowerCase(Locale.ROOT), distance);
+                    }
+                }
+            }
+            List<String> expectedOrder = expected.keySet().stream()
+                    .sorted(Comparator.comparing((String value) -> expected.get(value)).thenComparing(value -> value))
+                    .map(value -> value + "=" + expected.get(value))
+                    .toList();
+            List<String> found = index.suggest(query, Integer.MAX_VALUE).stream()
+                    .map(suggestion -> suggestion.value().toLowerCase(Locale.ROOT) + "=" + suggestion.distance())
+                    .toList();
+            assertEquals(expectedOrder, found, query);
+        }
+    }
+
+    private static String randomName(Random random) {
+        return String.format("PC-%04d", random.nextInt(3_000));
+    }
+
+    private static String randomSerial(Random random) {
+        StringBuilder serial = new StringBuilder("5CG");
+        for (int i = random.nextInt(4); i < 6; i++) {
+            serial.append("0123456789ABCS".charAt(random.nextInt(14)));
+        }
+        return serial.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] table = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                table[i][j] = i == 0 ? j : j == 0 ? i : Math.min(Math.min(table[i - 1][j], table[i][j - 1]) + 1,
+                        table[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+            }
+        }
+        return table[a.length()][b.length()];
+    }
+
+    private static MachineSnapshot machine(long id, String nomReseau, String serieNmb) {
+        return new MachineSnapshot(id, nomReseau, serieNmb, null, null, null, null, null, null, null, null, null,
+                null, false, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.cspinventory.search;
+
+import com.cspinventory.util.NetworkAddresses;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ipv4IndexTest {
+
+    @Test
+    void parsesCidrRangesAndSingleAddresses() {
+        assertEquals(Optional.of(range("10.12.4.0", "10.12.7.255")), Ipv4Range.parse("10.12.5.3/22"));
+        assertEquals(Optional.of(range("0.0.0.0", "255.255.255.255")), Ipv4Range.parse("1.2.3.4/0"));
+        assertEquals(Optional.of(range("10.0.0.1", "10.0.0.50")), Ipv4Range.parse(" 10.0.0.1 - 10.0.0.50 "));
+        assertEquals(Optional.of(range("192.168.1.1", "192.168.1.1")), Ipv4Range.parse("192.168.1.1"));
+        for (String invalid : List.of("10.1.1", "10.1.1.256", "10.0.0.9-10.0.0.1", "10.0.0.0/33", "10.0.0.0/", "")) {
+            assertTrue(Ipv4Range.parse(invalid).isEmpty(), invalid);
+        }
+    }
+
+    @Test
+    void rangeLookupsMatchAScan() {
+        Random random = new Random(3);
+        List<long[]> entries = new ArrayList<>();
+        Ipv4Index index = new Ipv4Index();
+        for (int doc = 0; doc < 2_000; doc++) {
+            long address = random.nextInt(4) == 0
+                    ? random.nextLong(0x1_0000_0000L)
+                    : NetworkAddresses.parseIPv4("10.12." + random.nextInt(16) + "." + random.nextInt(256));
+            entries.add(new long[] {address, doc});
+        }
+        // Half bulk-loaded like a rebuild, half inserted like write-through updates.
+        for (int doc = 0; doc < 2_000; doc += 2) {
+            index.append(entries.get(doc)[0], doc);
+        }
+        index.sort();
+        for (int doc = 1; doc < 2_000; doc += 2) {
+            index.add(entries.get(doc)[0], doc);
+        }
+        for (int doc = 0; doc < 2_000; doc += 7) {
+            index.remove(entries.get(doc)[0], doc);
+        }
+
+        for (String text : List.of("10.12.4.0/22", "10.12.0.0/16", "0.0.0.0/0", "128.0.0.0/1", "10.12.3.7")) {
+            Ipv4Range range = Ipv4Range.parse(text).orElseThrow();
+            long expected = entries.stream()
+                    .filter(entry -> entry[1] % 7 != 0 && entry[0] >= range.first() && entry[0] <= range.last())
+                    .count();
+            List<Integer> found = new ArrayList<>();
+            index.forEach(range, found::add);
+            assertEquals(expected, index.count(range), text);
+            assertEquals(expected, found.size(), text);
+            assertTrue(found.stream().allMatch(doc -> range.contains(NetworkAddresses.formatIPv4(entries.get(doc)[0]))),
+                    text);
+        }
+    }
+
+    private static Ipv4Range range(String first, String last) {
+        return new Ipv4Range(NetworkAddresses.parseIPv4(first), NetworkAddresses.parseIPv4(last));
+    }
+}
@@ -0,0 +1,66 @@
+package com.cspinventory.search;
+
+import com.cspinventory.util.NetworkAddresses;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MacIndexTest {
+
+    @Test
+    void parsesMacsInAnyNotationAndVendorPrefixes() {
+        for (String mac : List.of("00:1A:2B:3C:4D:5E", "00-1a-2b-3c-4d-5e", "001a.2b3c.4d5e", " 001A2B3C4D5E ")) {
+            assertEquals(0x001A2B3C4D5EL, NetworkAddresses.parseMac(mac), mac);
+        }
+        assertEquals("00:1A:2B:3C:4D:5E", NetworkAddresses.formatMac(0x001A2B3C4D5EL));
+        assertEquals(new MacRange(0x001A2B000000L, 0x001A2BFFFFFFL), MacRange.parse("00:1a:2b*").orElseThrow());
+        assertEquals(new MacRange(0x001A2B000000L, 0x001A2BFFFFFFL), MacRange.parse("001A2B").orElseThrow());
+        for (String invalid : List.of("00:1A:2B:3C:4D", "00:1A:2B:3C:4D:5E:6F", "00:1G:2B", "00:1a:*", "",
+                "٠٠:1A:2B")) {
+            assertTrue(MacRange.parse(invalid).isEmpty(), invalid);
+        }
+    }
+
+    @Test
+    void rangeLookupsMatchAScan() {
+        Random random = new Random(5);
+        long[] vendors = {0x001A2BL, 0xF01FAFL, 0x3C5282L};
+        List<long[]> entries = new ArrayList<>();
+        MacIndex index = new MacIndex();
+        for (int doc = 0; doc < 3_000; doc++) {
+            long mac = random.nextInt(5) == 0
+                    ? random.nextLong(0x1_0000_0000_0000L)
+                    : (vendors[random.nextInt(vendors.length)] << 24) | random.nextInt(64);
+            entries.add(new long[] {mac, doc});
+        }
+        // Half bulk-loaded like a rebuild, half inserted like write-through updates.
+        for (int doc = 0; doc < 3_000; doc += 2) {
+            index.append(entries.get(doc)[0], doc);
+        }
+        index.sort();
+        for (int doc = 1; doc < 3_000; doc += 2) {
+            index.add(entries.get(doc)[0], doc);
+        }
+        for (int doc = 0; doc < 3_000; doc += 7) {
+            index.remove(entries.get(doc)[0], doc);
+        }
+
+        for (String text : List.of("00:1A:2B", "f0:1f:af*", "3C5282000005", "00:00:00", "001a.2b00.0000")) {
+            MacRange range = MacRange.parse(text).orElseThrow();
+            long expected = entries.stream()
+                    .filter(entry -> entry[1] % 7 != 0 && entry[0] >= range.first() && entry[0] <= range.last())
+                    .count();
+            List<Integer> found = new ArrayList<>();
+            index.forEach(range, found::add);
+            assertEquals(expected, index.count(range), text);
+            assertEquals(expected, found.size(), text);
+            assertTrue(found.stream().allMatch(doc -> range.contains(NetworkAddresses.formatMac(entries.get(doc)[0]))),
+                    text);
+        }
+    }
+}
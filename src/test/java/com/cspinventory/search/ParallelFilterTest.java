@@ -0,0 +1,45 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static com.cspinventory.search.SearchFixtures.named;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelFilterTest {
+
+    @Test
+    void chunkedRunFindsEveryMatch() {
+        int size = ParallelFilter.CHUNK_SIZE * 5 + 17;
+        List<MachineSnapshot> machines = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            machines.add(named(i, i % 3 == 0 ? "PC-" + i : null));
+        }
+
+        long[] ids = ParallelFilter.filter(size, i -> i == 5 ? null : machines.get(i),
+                machine -> machine.nomReseau() != null, () -> false);
+
+        Arrays.sort(ids);
+        assertArrayEquals(LongStream.rangeClosed(1, size).filter(id -> id % 3 == 0 && id != 6).toArray(), ids);
+    }
+
+    @Test
+    void cancelledRunStopsBetweenChunks() {
+        int size = ParallelFilter.CHUNK_SIZE * 64;
+        AtomicInteger tested = new AtomicInteger();
+        MachineSnapshot machine = named(1, "PC-1");
+
+        assertThrows(CancellationException.class, () -> ParallelFilter.filter(size, i -> machine,
+                candidate -> tested.incrementAndGet() > 0, () -> tested.get() > 0));
+        assertTrue(tested.get() < size);
+    }
+}
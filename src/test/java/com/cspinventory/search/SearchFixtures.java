@@ -0,0 +1,40 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+// Machines and helpers shared by the search tests.
+final class SearchFixtures {
+
+    private SearchFixtures() {
+    }
+
+    // Every searched field filled from the seed, with repeated sites, lieux, models and statuts.
+    static MachineSnapshot machine(long id, Random random) {
+        String[] models = {"Latitude 5420", "OptiPlex 7090", "EliteBook 840", "ThinkPad T14"};
+        String[] statuts = {"Ok", "Maintenance", "Manque"};
+        String site = "Site " + (char) ('A' + random.nextInt(3));
+        String lieu = "Lieu " + random.nextInt(10);
+        return new MachineSnapshot(id, String.format("PC-%05d", id), "SN" + random.nextInt(1_000_000),
+                models[random.nextInt(models.length)], random.nextBoolean() ? "user" + random.nextInt(50) : null,
+                site + " / " + lieu, site, lieu, "10.1." + random.nextInt(256) + "." + random.nextInt(256), null,
+                String.format("AA:%02X:%02X:00:00:01", random.nextInt(256), random.nextInt(256)), null,
+                String.valueOf(random.nextInt(20)), random.nextBoolean(), statuts[random.nextInt(statuts.length)],
+                random.nextInt(10) == 0 ? "Ecran casse" : null, LocalDate.of(2020 + random.nextInt(5), 1, 15),
+                null, null);
+    }
+
+    static MachineSnapshot named(long id, String nomReseau) {
+        return new MachineSnapshot(id, nomReseau, null, null, null, null, null, null, null, null, null, null, null,
+                false, null, null, null, null, null);
+    }
+
+    static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
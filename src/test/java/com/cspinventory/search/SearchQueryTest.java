@@ -0,0 +1,177 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.InventorySnapshot;
+import com.cspinventory.model.MachineSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.cspinventory.search.SearchFixtures.machine;
+import static com.cspinventory.search.SearchFixtures.named;
+import static com.cspinventory.search.SearchFixtures.sorted;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchQueryTest {
+
+    @Test
+    void parsesFieldsOperatorsAndGroups() {
+        SearchQuery query = SearchQuery.parse("site:Bienne (statut:maintenance OR statut:manque) NOT garantie:oui");
+
+        assertEquals(new SearchQuery.And(List.of(
+                new SearchQuery.Field(SearchField.SITE, ValuePattern.of("bienne")),
+                new SearchQuery.Or(List.of(
+                        new SearchQuery.Field(SearchField.STATUT, ValuePattern.of("maintenance")),
+                        new SearchQuery.Field(SearchField.STATUT, ValuePattern.of("manque")))),
+                new SearchQuery.Not(new SearchQuery.Field(SearchField.GARANTIE, ValuePattern.of("true"))))), query);
+        assertEquals(new SearchQuery.Field(SearchField.MODEL, ValuePattern.of("EliteDesk 800")),
+                SearchQuery.parse("model:\"EliteDesk 800\""));
+    }
+
+    @Test
+    void anythingElseIsPlainText() {
+        assertInstanceOf(SearchQuery.All.class, SearchQuery.parse("   "));
+        assertEquals(new SearchQuery.Text("aa:bb:cc"), SearchQuery.parse("aa:bb:cc"));
+        assertEquals(new SearchQuery.Text("site b"), SearchQuery.parse("\"Site B"));
+        assertEquals(new SearchQuery.And(List.of(new SearchQuery.Text("pc"), new SearchQuery.Text("or"))),
+                SearchQuery.parse("pc or NOT"));
+        assertEquals(new SearchQuery.Text("site:"), SearchQuery.parse("site: )"));
+    }
+
+    @Test
+    void wildcardsMatchAnyRun() {
+        ValuePattern pattern = ValuePattern.of("10.1.*");
+        assertTrue(pattern.matches("10.1.4.20"));
+        assertFalse(pattern.matches("10.10.4.20"));
+        assertTrue(ValuePattern.of("*desk*800").matches("EliteDesk G4 800"));
+        assertFalse(ValuePattern.of("a*a").matches("a"));
+        assertEquals(List.of("elite", " 800"), ValuePattern.of("elite* 800").literals());
+    }
+
+    @Test
+    void indexedSearchMatchesTestingEveryMachine() {
+        List<MachineSnapshot> machines = new ArrayList<>();
+        Random random = new Random(17);
+        for (int i = 1; i <= 400; i++) {
+            machines.add(machine(i, random));
+        }
+        InventorySnapshot inventory = InventorySnapshot.of(1, machines);
+        SearchIndex index = new SearchIndex();
+        index.rebuild(machines);
+
+        for (String text : List.of("site:\"site a\"", "site:site* statut:maintenance", "garantie:non lieu:\"lieu 3\"",
+                "ip:10.1.2*", "model:\"EliteBook 840\" OR statut:manque", "NOT statut:ok", "lat NOT garantie:oui",
+                "(site:\"site b\" OR site:\"site c\") mac:aa:1*", "note:*casse", "vlan:1?", "user:*", "pc-001",
+                "ip:10.1.0.0/17", "NOT ip:10.1.2.0/24 statut:ok", "ip:10.1.3.0-10.1.9.255 OR site:\"site a\"",
+                "mac:aa:1f:03", "mac:aa1f03* OR mac:AA-20-7B-00-00-01", "NOT mac:aa:1*")) {
+            SearchQuery query = SearchQuery.parse(text);
+            long[] expected = machines.stream().filter(query::test).mapToLong(MachineSnapshot::id).toArray();
+            assertArrayEquals(expected, sorted(index.search(query, inventory)), text);
+        }
+    }
+
+    @Test
+    void fieldIndexFollowsUpdates() {
+        MachineSnapshot first = machine(1, new Random(1));
+        MachineSnapshot second = machine(2, new Random(2));
+        SearchIndex index = new SearchIndex();
+        index.rebuild(List.of(first, second));
+        MachineSnapshot moved = withSite(first, "Bienne");
+        index.put(moved);
+        index.remove(2);
+
+        SearchQuery query = SearchQuery.parse("site:bienne");
+        InventorySnapshot inventory = InventorySnapshot.of(2, List.of(moved));
+        assertArrayEquals(new long[] {1}, index.search(query, inventory));
+        assertArrayEquals(new long[0], index.search(SearchQuery.parse("site:\"" + second.site() + "\""), inventory));
+    }
+
+    @Test
+    void narrowingIsOnlyClaimedWhenItHolds() {
+        assertTrue(SearchQuery.parse("elited").narrows(SearchQuery.parse("elite")));
+        assertTrue(SearchQuery.parse("elite site:bienne").narrows(SearchQuery.parse("elite")));
+        assertTrue(SearchQuery.parse("ip:10.1.2*").narrows(SearchQuery.parse("ip:10.1.*")));
+        assertTrue(SearchQuery.parse("mac:aa1f03000001").narrows(SearchQuery.parse("mac:AA:1F:03*")));
+        assertTrue(SearchQuery.parse("model:\"EliteDesk 800\"").narrows(SearchQuery.parse("desk")));
+        assertTrue(SearchQuery.parse("statut:manque").narrows(SearchQuery.parse("statut:ok OR statut:manque")));
+        assertTrue(SearchQuery.parse("NOT lat").narrows(SearchQuery.parse("NOT latitude")));
+
+        assertFalse(SearchQuery.parse("elit").narrows(SearchQuery.parse("elite")));
+        assertFalse(SearchQuery.parse("elite OR site:bienne").narrows(SearchQuery.parse("elite")));
+        assertFalse(SearchQuery.parse("ip:10.1.*").narrows(SearchQuery.parse("ip:10.1.2*")));
+        assertFalse(SearchQuery.parse("site:bienne").narrows(SearchQuery.parse("lieu:bienne")));
+        assertFalse(SearchQuery.parse("NOT latitude").narrows(SearchQuery.parse("NOT lat")));
+    }
+
+    @Test
+    void aBareMacAddressAlsoMatchesItsOtherNotations() {
+        MachineSnapshot typed = new MachineSnapshot(1, "PC-1", null, null, null, null, null, null, null, null,
+                "AA:1F:03:00:00:01", null, null, false, null, null, null, null, null);
+        MachineSnapshot noted = new MachineSnapshot(2, "PC-2", null, null, null, null, null, null, null, null,
+                null, null, null, false, null, "remplace aa1f03000001", null, null, null);
+        List<MachineSnapshot> machines = List.of(typed, noted, named(3, "PC-3"));
+        InventorySnapshot inventory = InventorySnapshot.of(1, machines);
+        SearchIndex index = new SearchIndex();
+        index.rebuild(machines);
+
+        assertArrayEquals(new long[] {1, 2}, sorted(index.search(SearchQuery.parse("aa1f03000001"), inventory)));
+        assertArrayEquals(new long[] {1}, sorted(index.search(SearchQuery.parse("AA-1F-03-00-00-01"), inventory)));
+        assertArrayEquals(new long[] {1}, sorted(index.search(SearchQuery.parse("aa:1f:03:00:00:01"), inventory)));
+        assertTrue(SearchQuery.parse("aa1f.0300.0001").test(typed));
+    }
+
+    @Test
+    void refiningGivesTheSameMatchesAsSearchingAgain() {
+        List<MachineSnapshot> machines = new ArrayList<>();
+        Random random = new Random(23);
+        for (int i = 1; i <= 300; i++) {
+            machines.add(machine(i, random));
+        }
+        InventorySnapshot inventory = InventorySnapshot.of(1, machines);
+        SearchIndex index = new SearchIndex();
+        index.rebuild(machines);
+
+        SearchResult previous = index.search(SearchQuery.parse("note:*cass*"), inventory, null);
+        for (String text : List.of("note:*casse", "note:*casse user:user1*", "note:*casse NOT statut:ok")) {
+            SearchQuery query = SearchQuery.parse(text);
+            SearchResult refined = index.search(query, inventory, previous);
+            assertArrayEquals(index.search(query, inventory, null).ids().toArray(), refined.ids().toArray(), text);
+            previous = refined;
+        }
+    }
+
+    @Test
+    void resultsOfAnotherVersionAreNotReused() {
+        MachineSnapshot first = machine(1, new Random(1));
+        MachineSnapshot second = machine(2, new Random(2));
+        SearchIndex index = new SearchIndex();
+        index.rebuild(List.of(first, second));
+        SearchResult previous = index.search(SearchQuery.parse("note:*"), InventorySnapshot.of(1, List.of(first)),
+                null);
+
+        MachineSnapshot noted = withNote(second, "Clavier casse");
+        index.put(noted);
+        SearchResult next = index.search(SearchQuery.parse("note:*casse"), InventorySnapshot.of(2, List.of(first,
+                noted)), previous);
+
+        assertTrue(next.contains(2));
+        assertEquals(2, next.version());
+    }
+
+    private static MachineSnapshot withSite(MachineSnapshot m, String site) {
+        return new MachineSnapshot(m.id(), m.nomReseau(), m.serieNmb(), m.model(), m.utilisateur(), m.emplacement(),
+                site, m.lieu(), m.ipv4RJ45(), m.ipv4Wifi(), m.macEthernet(), m.macWifi(), m.vlan(), m.garantie(),
+                m.statut(), m.note(), m.purchaseDate(), m.dateMiseEnService(), m.dateModif());
+    }
+
+    private static MachineSnapshot withNote(MachineSnapshot m, String note) {
+        return new MachineSnapshot(m.id(), m.nomReseau(), m.serieNmb(), m.model(), m.utilisateur(), m.emplacement(),
+                m.site(), m.lieu(), m.ipv4RJ45(), m.ipv4Wifi(), m.macEthernet(), m.macWifi(), m.vlan(), m.garantie(),
+                m.statut(), note, m.purchaseDate(), m.dateMiseEnService(), m.dateModif());
+    }
+}
@@ -0,0 +1,85 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.service.MachineService;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Run with: mvn -Pbenchmark test -Dtest=TrigramIndexBenchmark
+class TrigramIndexBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final List<String> QUERIES = List.of("pc-0004242", "aa:3f:1", "latitude", "site b", "ok", "7");
+    private static final int RUNS = 5;
+
+    private final MachineService linearScan = new MachineService(null);
+
+    @Test
+    void searchLatencyAgainstLinearScan() {
+        for (int size : SIZES) {
+            List<MachineSnapshot> machines = syntheticMachines(size);
+
+            long start = System.nanoTime();
+            TrigramIndex index = new TrigramIndex();
+            index.rebuild(machines);
+            System.out.printf("%,d machines: index built in %d ms%n", size, (System.nanoTime() - start) / 1_000_000);
+
+            for (String query : QUERIES) {
+                int hits = index.search(query).length;
+                double indexed = averageMillis(() -> index.search(query));
+                double scanned = averageMillis(() -> machines.stream()
+                        .filter(machine -> linearScan.matches(machine, query))
+                        .count());
+                System.out.printf("  %-12s %,9d hits  index %9.3f ms  linear scan %9.3f ms%n",
+                        "'" + query + "'", hits, indexed, scanned);
+            }
+        }
+    }
+
+    private static double averageMillis(Runnable search) {
+        search.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            search.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+
+    static List<MachineSnapshot> syntheticMachines(int count) {
+        String[] models = {"Latitude 5420", "OptiPlex 7090", "EliteBook 840", "ThinkPad T14", "Surface Pro 9"};
+        String[] statuts = {"Ok", "Ok", "Ok", "Maintenance", "Manque"};
+        Random random = new Random(7);
+        List<MachineSnapshot> machines = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String site = "Site " + (char) ('A' + random.nextInt(5));
+            String lieu = "Salle " + random.nextInt(40);
+            machines.add(new MachineSnapshot(
+                    i,
+                    String.format("PC-%07d", i),
+                    String.format("SN%08d", random.nextInt(100_000_000)),
+                    models[random.nextInt(models.length)],
+                    "user" + random.nextInt(5_000),
+                    site + " / " + lieu,
+                    site,
+                    lieu,
+                    "10." + random.nextInt(16) + "." + random.nextInt(256) + "." + random.nextInt(256),
+                    null,
+                    String.format("AA:%02X:%02X:%02X:%02X:%02X", random.nextInt(256), random.nextInt(256),
+                            random.nextInt(256), random.nextInt(256), random.nextInt(256)),
+                    null,
+                    String.valueOf(random.nextInt(30)),
+                    random.nextBoolean(),
+                    statuts[random.nextInt(statuts.length)],
+                    random.nextInt(20) == 0 ? "Batterie a changer" : null,
+                    LocalDate.of(2018 + random.nextInt(7), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                    null,
+                    LocalDateTime.of(2024, 1 + random.nextInt(12), 1 + random.nextInt(28), 8, 0)));
+        }
+        return machines;
+    }
+}
@@ -0,0 +1,61 @@
+package com.cspinventory.search;
+
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.service.MachineService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.cspinventory.search.SearchFixtures.machine;
+import static com.cspinventory.search.SearchFixtures.named;
+import static com.cspinventory.search.SearchFixtures.sorted;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrigramIndexTest {
+
+    private final MachineService linearScan = new MachineService(null);
+
+    @Test
+    void searchMatchesTheLinearScan() {
+        List<MachineSnapshot> machines = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 1; i <= 500; i++) {
+            machines.add(machine(i, random));
+        }
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(machines);
+
+        for (String query : List.of("pc-0", "PC-00042", "lat", "10.1.", "aa:1", "ok", "2024-0", "a", "e 5",
+                "true", "  Site B  ", "zzz", "site b / l")) {
+            assertArrayEquals(linearScan(machines, query), sorted(index.search(query)), query);
+        }
+    }
+
+    @Test
+    void updatesAndRemovalsKeepTheIndexInSync() {
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(List.of(named(1, "PC-ALPHA"), named(2, "PC-BETA"), named(3, "PC-ALPINE")));
+
+        index.put(named(2, "PC-ALPACA"));
+        index.remove(1);
+        index.put(named(4, "PC-GAMMA"));
+
+        assertArrayEquals(new long[] {2, 3}, sorted(index.search("alp")));
+        assertArrayEquals(new long[0], sorted(index.search("beta")));
+        assertArrayEquals(new long[0], sorted(index.search("alpha")));
+        assertArrayEquals(new long[] {4}, sorted(index.search("gam")));
+        assertArrayEquals(new long[] {2, 3, 4}, sorted(index.search("")));
+        assertEquals(3, index.size());
+    }
+
+    private long[] linearScan(List<MachineSnapshot> machines, String query) {
+        return machines.stream()
+                .filter(machine -> linearScan.matches(machine, query))
+                .mapToLong(MachineSnapshot::id)
+                .sorted()
+                .toArray();
+    }
+}
@@ -0,0 +1,102 @@
+package com.cspinventory.service;
+
+import com.cspinventory.dao.DatabaseManager;
+import com.cspinventory.dao.SQLiteMachineDao;
+import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncMachineServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager manager;
+    private AsyncMachineService asyncService;
+    // Stands in for the JavaFX Application Thread.
+    private final ExecutorService uiThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ui"));
+
+    @AfterEach
+    void close() {
+        asyncService.close();
+        uiThread.shutdownNow();
+        manager.close();
+    }
+
+    @Test
+    void workRunsOnVirtualThreadsAndResultsOnTheUiExecutor() throws Exception {
+        AsyncMachineService service = newService();
+        boolean[] workOnVirtualThread = new boolean[1];
+
+        CompletableFuture<String> callbackThread = onUiThread(() -> service.create(machine("PC-ASYNC"))
+                .thenCompose(created -> service.call(machineService -> {
+                    workOnVirtualThread[0] = Thread.currentThread().isVirtual();
+                    return machineService.findAll();
+                }))
+                .thenApply(all -> {
+                    assertEquals(List.of("PC-ASYNC"), all.stream().map(MachineSnapshot::nomReseau).toList());
+                    return Thread.currentThread().getName();
+                }));
+
+        assertEquals("ui", callbackThread.get(5, TimeUnit.SECONDS));
+        assertTrue(workOnVirtualThread[0]);
+    }
+
+    @Test
+    void failuresCompleteTheFutureOnTheUiExecutor() throws Exception {
+        AsyncMachineService service = newService();
+        service.create(machine("PC-TAKEN")).get(5, TimeUnit.SECONDS);
+
+        assertTrue(service.isNomReseauTaken("pc-taken", null).get(5, TimeUnit.SECONDS));
+        assertFalse(service.isNomReseauTaken("pc-free", null).get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> failureThread = onUiThread(() -> service.create(machine("PC-TAKEN"))
+                .handle((result, error) -> {
+                    assertInstanceOf(IllegalArgumentException.class, AsyncMachineService.unwrap(error));
+                    return Thread.currentThread().getName();
+                }));
+        assertEquals("ui", failureThread.get(5, TimeUnit.SECONDS));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> service.create(machine("PC-TAKEN")).get(5, TimeUnit.SECONDS));
+        assertEquals("NomReseau existe deja", error.getCause().getMessage());
+    }
+
+    // Callbacks are chained on the UI thread, as the controllers do, so none of them can run on the caller.
+    private <T> CompletableFuture<T> onUiThread(Supplier<CompletableFuture<T>> chain) {
+        return CompletableFuture.supplyAsync(chain, uiThread).thenCompose(future -> future);
+    }
+
+    private AsyncMachineService newService() {
+        manager = new DatabaseManager(tempDir.resolve("async.db").toString());
+        manager.initialize();
+        asyncService = new AsyncMachineService(new MachineService(new SQLiteMachineDao(manager)), uiThread);
+        return asyncService;
+    }
+
+    private Machine machine(String nomReseau) {
+        Machine machine = new Machine();
+        machine.setNomReseau(nomReseau);
+        machine.setSite("Site A");
+        machine.setLieu("Bureau");
+        machine.setStatut("Ok");
+        return machine;
+    }
+}
@@ -0,0 +1,99 @@
+package com.cspinventory.service;
+
+import com.cspinventory.model.MachineSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InventoryStatsTest {
+
+    private static final String[] STATUTS = {null, "", "Ok", "ok", "Maintenance", "Manque", "Autre"};
+    private static final String[] LIEUX = {null, " ", "Accueil", "Compta", "Direction", "Labo", "Magasin", "RH"};
+    private static final String[] SITES = {null, "Nord", "Sud", "Est"};
+
+    @Test
+    void followsAddedAndRemovedRowsLikeAFullRecount() {
+        List<MachineSnapshot> machines = new ArrayList<>();
+        InventoryStats stats = InventoryStats.of(machines, () -> false);
+        assertNull(stats.summary(5).latestUpdate());
+
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            machines.add(randomMachine(random, i));
+        }
+        stats = InventoryStats.of(machines, () -> false);
+        assertMatchesRecount(stats, machines);
+
+        for (int step = 0; step < 500; step++) {
+            int action = random.nextInt(3);
+            if (action == 0 || machines.isEmpty()) {
+                MachineSnapshot added = randomMachine(random, 1_000 + step);
+                machines.add(added);
+                stats.add(added);
+            } else if (action == 1) {
+                stats.remove(machines.remove(random.nextInt(machines.size())));
+            } else {
+                int index = random.nextInt(machines.size());
+                MachineSnapshot replaced = randomMachine(random, machines.get(index).id());
+                stats.remove(machines.set(index, replaced));
+                stats.add(replaced);
+            }
+            assertMatchesRecount(stats, machines);
+        }
+
+        machines.forEach(stats::remove);
+        assertEquals(InventorySummary.EMPTY, stats.summary(5));
+    }
+
+    private static void assertMatchesRecount(InventoryStats stats, List<MachineSnapshot> machines) {
+        InventorySummary summary = stats.summary(5);
+        assertEquals(machines.size(), summary.count());
+        assertEquals(machines.stream().filter(m -> isBlank(m.statut()) || "Ok".equalsIgnoreCase(m.statut())).count(),
+                summary.ok());
+        assertEquals(machines.stream().filter(m -> "Maintenance".equals(m.statut())).count(), summary.maintenance());
+        assertEquals(machines.stream().filter(m -> "Manque".equals(m.statut())).count(), summary.manque());
+        assertEquals(machines.stream().filter(MachineSnapshot::garantie).count(), summary.garantie());
+        assertEquals(machines.stream().filter(m -> isBlank(m.utilisateur())).count(), summary.noUser());
+        assertEquals(machines.stream().filter(m -> !isBlank(m.ipv4RJ45())).count(), summary.rj45());
+        assertEquals(machines.stream().filter(m -> !isBlank(m.ipv4Wifi())).count(), summary.wifi());
+        assertEquals(machines.stream().filter(m -> !isBlank(m.ipv4RJ45()) && !isBlank(m.ipv4Wifi())).count(),
+                summary.both());
+        assertEquals(top(machines.stream().map(MachineSnapshot::lieu).toList()), summary.topLieux());
+        assertEquals(top(machines.stream().map(MachineSnapshot::site).toList()), summary.topSites());
+        assertEquals(machines.stream().map(MachineSnapshot::dateModif).filter(Objects::nonNull)
+                .max(Comparator.naturalOrder()).orElse(null), summary.latestUpdate());
+    }
+
+    private static List<Map.Entry<String, Long>> top(List<String> values) {
+        return values.stream()
+                .filter(value -> !isBlank(value))
+                .collect(Collectors.groupingBy(value -> value, Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(5)
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private static MachineSnapshot randomMachine(Random random, long id) {
+        return new MachineSnapshot(id, "PC-" + id, null, null, random.nextBoolean() ? "user" + id : null, null,
+                SITES[random.nextInt(SITES.length)], LIEUX[random.nextInt(LIEUX.length)],
+                random.nextBoolean() ? "10.0.0." + id % 250 : null, random.nextInt(3) == 0 ? "10.1.0.1" : "",
+                null, null, null, random.nextBoolean(), STATUTS[random.nextInt(STATUTS.length)], null, null, null,
+                random.nextInt(4) == 0 ? null : LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(random.nextInt(40)));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
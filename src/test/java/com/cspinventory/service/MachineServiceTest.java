@@ -1,13 +1,32 @@
 package com.cspinventory.service;
 
+import com.cspinventory.dao.BatchResult;
+import com.cspinventory.dao.MachineChanges;
 import com.cspinventory.dao.MachineDao;
+import com.cspinventory.model.InventorySnapshot;
 import com.cspinventory.model.Machine;
+import com.cspinventory.model.MachineSnapshot;
+import com.cspinventory.model.SearchCriteria;
+import com.cspinventory.search.SearchPage;
+import com.cspinventory.search.SearchQuery;
+import com.cspinventory.search.SearchResult;
+import com.cspinventory.util.TextFolding;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -73,24 +92,530 @@ class MachineServiceTest {
         MachineService service = new MachineService(dao);
 
         Machine machine = new Machine();
+        machine.setId(1L);
         machine.setNomReseau("POSTE-ABC");
         machine.setUtilisateur("Alice");
         machine.setIpv4RJ45("10.1.2.3");
+        MachineSnapshot snapshot = MachineSnapshot.of(machine);
 
-        assertTrue(service.matches(machine, "alice"));
-        assertTrue(service.matches(machine, "10.1"));
-        assertFalse(service.matches(machine, "bob"));
+        assertTrue(service.matches(snapshot, "alice"));
+        assertTrue(service.matches(snapshot, "10.1"));
+        assertFalse(service.matches(snapshot, "bob"));
+    }
+
+    @Test
+    void searchIgnoresAccentsOnBothSides() {
+        MachineService service = new MachineService(new InMemoryMachineDao());
+        service.snapshot();
+        Machine reception = machine("PC-RECEP");
+        reception.setLieu("Réception");
+        reception.setUtilisateur("Zoë Lefèvre");
+        service.create(reception);
+        Machine cafeteria = machine("PC-CAFE");
+        cafeteria.setLieu("CAFETERIA");
+        service.create(cafeteria);
+
+        assertEquals(List.of("PC-RECEP"), names(service.findMatching(SearchQuery.parse("reception"), 10)));
+        assertEquals(List.of("PC-RECEP"), names(service.findMatching(SearchQuery.parse("lieu:RÉCEPTION"), 10)));
+        assertEquals(List.of("PC-CAFE"), names(service.findMatching(SearchQuery.parse("lieu:cafétéria"), 10)));
+        assertEquals(List.of("PC-RECEP"), names(service.findMatching(SearchQuery.parse("user:zoe*"), 10)));
+        assertTrue(service.matches(MachineSnapshot.of(reception), "lefevre"));
+        assertFalse(service.matches(MachineSnapshot.of(cafeteria), "recep"));
+    }
+
+    @Test
+    void aPageOfMatchesKeepsTheWholeResultForRefining() {
+        MachineService service = new MachineService(new InMemoryMachineDao());
+        service.snapshot();
+        for (String name : List.of("PC-D", "PC-B", "PC-A", "PC-C", "SRV-A")) {
+            service.create(machine(name));
+        }
+
+        SearchPage page = service.findMatching(SearchQuery.parse("pc"), null, () -> false, 2);
+        assertEquals(List.of("PC-A", "PC-B"), names(page.machines()));
+        assertEquals(4, page.result().size());
+
+        SearchPage refined = service.findMatching(SearchQuery.parse("pc-c"), page.result(), () -> false, 2);
+        assertEquals(List.of("PC-C"), names(refined.machines()));
+        assertThrows(CancellationException.class,
+                () -> service.findMatching(SearchQuery.parse("pc-d"), refined.result(), () -> true, 2));
+    }
+
+    @Test
+    void suggestsCloseNamesAndSerialsAndFollowsWrites() {
+        MachineService service = new MachineService(new InMemoryMachineDao());
+        Machine laptop = machine("PC-COMPTA-01");
+        laptop.setSerieNmb("5CG7281XYZ");
+        service.create(laptop);
+        Machine renamed = service.create(machine("PC-ACCUEIL"));
+
+        assertEquals(List.of("5CG7281XYZ"), service.suggestSimilar("SCG7281XYZ", 3));
+        assertEquals(List.of("PC-COMPTA-01"), service.suggestSimilar("pc-compta-1", 3));
+        assertEquals(List.of("PC-ACCUEIL"), service.suggestSimilar("pc-acceuil", 3));
+
+        renamed.setNomReseau("PC-DIRECTION");
+        service.update(renamed);
+        assertEquals(List.of(), service.suggestSimilar("pc-acceuil", 3));
+        assertEquals(List.of("PC-DIRECTION"), service.suggestSimilar("pc-direktion", 3));
+    }
+
+    @Test
+    void createAllReportsInvalidAndDuplicateRowsWithoutAbortingTheBatch() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine existing = new Machine();
+        existing.setNomReseau("PC-001");
+        service.create(existing);
+
+        BatchResult result = service.createAll(List.of(
+                machine("PC-010"),
+                machine("pc-001"),
+                machine("  "),
+                machine("PC-011"),
+                machine("pc-010")
+        ));
+
+        assertEquals(2, result.succeeded().size());
+        assertEquals(List.of(1, 2, 4), result.failures().stream().map(BatchResult.Failure::index).toList());
+        assertEquals("NomReseau existe deja", result.failures().get(0).message());
+        assertEquals(1, dao.nomReseauLookups);
+        assertEquals(3, dao.findAll().size());
+    }
+
+    @Test
+    void batchDuplicatesFollowTheCaseRuleOfTheUniqueIndex() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+
+        BatchResult result = service.createAll(List.of(
+                machine("PC-É"),
+                machine("pc-é"),
+                machine("PC-A"),
+                machine("pc-a")
+        ));
+
+        assertEquals(3, result.succeeded().size());
+        assertEquals(List.of(3), result.failures().stream().map(BatchResult.Failure::index).toList());
+    }
+
+    @Test
+    void updateAllAllowsKeepingOwnNomReseau() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        service.create(machine("PC-001"));
+        Machine second = service.create(machine("PC-002"));
+        Machine third = service.create(machine("PC-003"));
+
+        Machine renamed = machine("pc-001");
+        renamed.setId(second.getId());
+        third.setUtilisateur("Alice");
+        BatchResult result = service.updateAll(List.of(renamed, third));
+
+        assertEquals(List.of(third), result.succeeded());
+        assertEquals(1, result.failures().size());
+        assertEquals(0, result.failures().get(0).index());
+        assertEquals("NomReseau existe deja", result.failures().get(0).message());
+    }
+
+    @Test
+    void pagingAndExportReadTheDatabaseUntilTheInventoryIsLoaded() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        dao.save(machine("PC-002"));
+        dao.save(machine("pc-001"));
+
+        assertEquals(2, service.count());
+        assertEquals(List.of("pc-001"), names(service.findPage(null, null, 1)));
+        assertEquals(List.of("PC-002"), names(service.findPage("pc-001", 2L, 10)));
+        try (Stream<MachineSnapshot> exported = service.streamAll()) {
+            assertEquals(2, exported.count());
+        }
+        assertEquals(0, dao.findAllCalls);
+        assertEquals(0, service.getCacheStats().loads());
+
+        service.findAll();
+        assertEquals(List.of("PC-002"), names(service.findPage("pc-001", 2L, 10)));
+        assertEquals(1, dao.findAllCalls);
+    }
+
+    @Test
+    void externalCommitsAreAppliedWithoutReloading() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        service.create(machine("PC-001"));
+        Machine second = service.create(machine("PC-002"));
+        service.findMatchingIds("PC-0");
+        assertFalse(service.checkForExternalChanges());
+
+        dao.save(machine("PC-003"));
+        dao.delete(second.getId());
+        dao.dataVersion++;
+        assertTrue(service.checkForExternalChanges());
+        assertFalse(service.checkForExternalChanges());
+
+        assertEquals(List.of("PC-001", "PC-003"), names(service.findAll()));
+        assertEquals(Set.of(1L, 3L), service.findMatchingIds("PC-0"));
+        MachineCacheStats stats = service.getCacheStats();
+        assertEquals(1, dao.findAllCalls);
+        assertEquals(1, stats.loads());
+        assertEquals(1, stats.catchUps());
+        assertEquals(0, stats.invalidations());
+    }
+
+    @Test
+    void snapshotIsReloadedWhenTheTombstonesItNeedsWerePruned() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine first = service.create(machine("PC-001"));
+        service.findAll();
+
+        dao.delete(first.getId());
+        dao.prunedThrough = dao.changeSeq;
+        dao.dataVersion++;
+        assertTrue(service.checkForExternalChanges());
+
+        assertEquals(List.of(), service.findAll());
+        assertEquals(2, dao.findAllCalls);
+        assertEquals(1, service.getCacheStats().invalidations());
+    }
+
+    @Test
+    void writesAreAppliedToTheCacheWithoutReloading() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine first = service.create(machine("PC-001"));
+        Machine second = service.create(machine("PC-002"));
+        service.findAll();
+
+        second.setNomReseau("PC-000");
+        service.update(second);
+        service.createAll(List.of(machine("PC-003"), machine("pc-001")));
+        service.delete(first.getId());
+        second.setUtilisateur("Changed after the update");
+
+        List<MachineSnapshot> cached = service.findAll();
+        assertEquals(List.of("PC-000", "PC-003"), names(cached));
+        assertEquals(null, cached.get(0).utilisateur());
+        assertEquals(1, dao.findAllCalls);
+        assertEquals(1, service.getCacheStats().loads());
+        assertThrows(UnsupportedOperationException.class, () -> cached.remove(0));
+    }
+
+    @Test
+    void eachWritePublishesANewSnapshotAndLeavesHeldOnesUnchanged() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine first = service.create(machine("PC-001"));
+        InventorySnapshot before = service.snapshot();
+
+        Machine edited = before.findById(first.getId()).orElseThrow().toMachine();
+        edited.setUtilisateur("Alice");
+        service.update(edited);
+        service.create(machine("PC-002"));
+        InventorySnapshot after = service.snapshot();
+
+        assertEquals(1, before.size());
+        assertEquals(null, before.findById(first.getId()).orElseThrow().utilisateur());
+        assertEquals("Alice", after.findById(first.getId()).orElseThrow().utilisateur());
+        assertEquals(before.version() + 2, after.version());
+        assertEquals(List.of("PC-002"), names(after.pageAfter("pc-001", first.getId(), 10)));
+    }
+
+    @Test
+    void summaryCountsEveryRowAndFollowsWritesAndExternalCommits() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine first = service.create(located("PC-001", "Accueil"));
+        service.create(located("PC-002", "Accueil"));
+        service.create(located("PC-003", "Labo"));
+        assertEquals(3, service.summary(5).count());
+
+        first.setStatut("Maintenance");
+        first.setLieu("Labo");
+        service.update(first);
+        dao.save(located("PC-004", "Labo"));
+        dao.dataVersion++;
+        service.checkForExternalChanges();
+
+        InventorySummary summary = service.summary(5);
+        assertEquals(4, summary.count());
+        assertEquals(1, summary.maintenance());
+        assertEquals(List.of(Map.entry("Labo", 3L), Map.entry("Accueil", 1L)), summary.topLieux());
+        assertEquals(1, dao.findAllCalls);
+    }
+
+    @Test
+    void searchResultsAreSummarizedOverEveryMatch() {
+        MachineService service = new MachineService(new InMemoryMachineDao());
+        service.create(located("PC-001", "Accueil"));
+        service.create(located("PC-002", "Labo"));
+        service.create(located("SRV-001", "Labo"));
+        SearchResult result = service.findMatching(SearchQuery.parse("PC-0"), null);
+
+        InventorySummary summary = service.summarize(result, 5, () -> false);
+        assertEquals(2, summary.count());
+        assertEquals(List.of(Map.entry("Accueil", 1L), Map.entry("Labo", 1L)), summary.topLieux());
+        assertThrows(CancellationException.class, () -> service.summarize(result, 5, () -> true));
+    }
+
+    @Test
+    void patchedSnapshotsMatchOnesBuiltFromScratch() {
+        String[] names = {"PC-001", "pc-001", "PC-002", "Pc-003", "PC-004", "pc-004", "PC-\u00c9", "pc-\u00e9"};
+        Random random = new Random(11);
+        Map<Long, MachineSnapshot> rows = new HashMap<>();
+        InventorySnapshot patched = InventorySnapshot.of(0, List.of());
+        for (int step = 0; step < 300; step++) {
+            Map<Long, MachineSnapshot> changed = new HashMap<>();
+            Set<Long> removed = new HashSet<>();
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                long id = 1 + random.nextInt(12);
+                if (changed.containsKey(id) || removed.contains(id)) {
+                    continue;
+                }
+                if (random.nextInt(3) == 0) {
+                    removed.add(id);
+                    rows.remove(id);
+                } else {
+                    Machine machine = machine(names[random.nextInt(names.length)]);
+                    machine.setId(id);
+                    changed.put(id, MachineSnapshot.of(machine));
+                    rows.put(id, changed.get(id));
+                }
+            }
+            patched = patched.withChanges(changed.values(), removed);
+            InventorySnapshot rebuilt = InventorySnapshot.of(patched.version(), rows.values());
+
+            assertEquals(rebuilt.machines(), patched.machines());
+            for (long id = 0; id <= 12; id++) {
+                assertEquals(rebuilt.findById(id), patched.findById(id));
+                for (String name : names) {
+                    Long excludeId = id == 0 ? null : id;
+                    assertEquals(rebuilt.isNomReseauTaken(name, excludeId), patched.isNomReseauTaken(name, excludeId),
+                            name + " excluding " + excludeId + " at step " + step);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nomReseauChecksAreAnsweredFromTheLoadedSnapshot() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        service.snapshot();
+        Machine first = service.create(machine("PC-001"));
+        service.create(machine("PC-É"));
+
+        assertTrue(service.isNomReseauTaken(" pc-001 ", null));
+        assertFalse(service.isNomReseauTaken("pc-001", first.getId()));
+        assertFalse(service.isNomReseauTaken("pc-é", null));
+        assertThrows(IllegalArgumentException.class, () -> service.create(machine("Pc-001")));
+        assertEquals(0, dao.existsLookups);
+    }
+
+    @Test
+    void nomReseauChecksDoNotLoadAColdCache() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine first = service.create(machine("PC-001"));
+
+        assertTrue(service.isNomReseauTaken(" pc-001 ", null));
+        assertFalse(service.isNomReseauTaken("pc-001", first.getId()));
+        assertThrows(IllegalArgumentException.class, () -> service.create(machine("Pc-001")));
+        assertEquals(0, dao.findAllCalls);
+        assertEquals(0, service.getCacheStats().loads());
+    }
+
+    @Test
+    void coldSearchesArePushedDownWithoutLoadingTheInventory() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        Machine second = machine("PC-B2");
+        second.setSite("Bienne");
+        service.create(second);
+        Machine first = machine("PC-B1");
+        first.setSite("Bienne");
+        service.create(first);
+        service.create(machine("PC-T1"));
+
+        SearchPage page = service.findMatching(SearchQuery.parse("site:bienne pc"), null, () -> false, 10);
+        assertEquals(List.of("PC-B1", "PC-B2"), page.machines().stream().map(MachineSnapshot::nomReseau).toList());
+        assertEquals(SearchResult.NO_SNAPSHOT, page.result().version());
+        assertEquals(0, service.getCacheStats().loads());
+
+        assertEquals(List.of("PC-T1"), names(service.findMatching(SearchQuery.parse("t1"), 10)));
+        assertEquals(0, service.getCacheStats().loads());
+
+        // A wildcard is not pushed down; once loaded, the snapshot answers every query.
+        assertEquals(2, service.findMatching(SearchQuery.parse("site:bien*"), null, () -> false, 10).machines().size());
+        assertEquals(1, service.getCacheStats().loads());
+        SearchPage warm = service.findMatching(SearchQuery.parse("site:bienne pc"), null, () -> false, 10);
+        assertEquals(page.machines(), warm.machines());
+        assertTrue(warm.result().version() != SearchResult.NO_SNAPSHOT);
+        assertEquals(1, dao.findAllCalls);
+    }
+
+    @Test
+    void nameTakenElsewhereIsCaughtOnCommitAndCatchesTheSnapshotUp() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        service.snapshot();
+        dao.save(machine("PC-OTHER"));
+        dao.dataVersion++;
+
+        assertFalse(service.isNomReseauTaken("PC-OTHER", null));
+        assertThrows(IllegalArgumentException.class, () -> service.create(machine("pc-other")));
+        assertTrue(service.isNomReseauTaken("PC-OTHER", null));
+        assertEquals(1, service.getCacheStats().catchUps());
+        assertEquals(1, service.getCacheStats().loads());
+    }
+
+    @Test
+    void ipv4LookupsCompareAddressesNotText() {
+        InMemoryMachineDao dao = new InMemoryMachineDao();
+        MachineService service = new MachineService(dao);
+        service.create(addressed("PC-A", "10.1.1.1", null));
+        service.create(addressed("PC-B", "10.1.11.5", "10.12.7.255"));
+        Machine moved = service.create(addressed("PC-C", "10.12.3.9", null));
+        service.findByIpv4("10.0.0.0/8");
+
+        moved.setIpv4RJ45("10.12.4.1");
+        service.update(moved);
+
+        assertEquals(List.of("PC-B", "PC-C"), names(service.findByIpv4("10.12.4.0/22")));
+        assertEquals(List.of("PC-A"), names(service.findByIpv4("10.1.1.1")));
+        assertEquals(List.of("PC-A", "PC-B"), names(service.findByIpv4("10.1.1.0 - 10.1.11.5")));
+        assertEquals(List.of("PC-B", "PC-C"), names(service.findMatching(SearchQuery.parse("ip:10.12.4.0/22"), 10)));
+        assertThrows(IllegalArgumentException.class, () -> service.findByIpv4("10.1.1"));
+    }
+
+    @Test
+    void macLookupsAcceptAnyNotationAndVendorPrefixes() {
+        MachineService service = new MachineService(new InMemoryMachineDao());
+        service.create(withMacs("PC-A", "00:1A:2B:00:00:01", null));
+        service.create(withMacs("PC-B", "f0-1f-af-12-34-56", "001a.2b00.0002"));
+        Machine renamed = service.create(withMacs("PC-C", "001A2B000003", null));
+        service.findByMac("00:1a:2b:00:00:01");
+
+        renamed.setMacEthernet("F0:1F:AF:00:00:09");
+        service.update(renamed);
+
+        assertEquals(List.of("PC-B"), names(service.findByMac("00-1A-2B-00-00-02")));
+        assertEquals(List.of("PC-A", "PC-B"), names(service.findByMac("00:1a:2b")));
+        assertEquals(List.of("PC-B", "PC-C"), names(service.findByMac("F01FAF*")));
+        assertEquals(List.of("PC-B", "PC-C"), names(service.findMatching(SearchQuery.parse("mac:f0:1f:af*"), 10)));
+        assertEquals(List.of(), names(service.findByMac("00:1A:2B:00:00:03")));
+        assertThrows(IllegalArgumentException.class, () -> service.findByMac("00:1A:2B:00:00"));
+    }
+
+    private static Machine withMacs(String nomReseau, String ethernet, String wifi) {
+        Machine machine = machine(nomReseau);
+        machine.setMacEthernet(ethernet);
+        machine.setMacWifi(wifi);
+        return machine;
+    }
+
+    private static Machine addressed(String nomReseau, String rj45, String wifi) {
+        Machine machine = machine(nomReseau);
+        machine.setIpv4RJ45(rj45);
+        machine.setIpv4Wifi(wifi);
+        return machine;
+    }
+
+    private static List<String> names(List<MachineSnapshot> machines) {
+        return machines.stream().map(MachineSnapshot::nomReseau).toList();
+    }
+
+    private static Machine located(String nomReseau, String lieu) {
+        Machine machine = machine(nomReseau);
+        machine.setLieu(lieu);
+        return machine;
+    }
+
+    private static Machine machine(String nomReseau) {
+        Machine machine = new Machine();
+        machine.setNomReseau(nomReseau);
+        return machine;
     }
 
     private static class InMemoryMachineDao implements MachineDao {
         private final List<Machine> storage = new ArrayList<>();
         private long seq = 1L;
+        private int nomReseauLookups;
+        private int existsLookups;
+        private int findAllCalls;
+        private long dataVersion = 1L;
+        // Change sequence: the last change number of each row and each deleted id.
+        private long changeSeq;
+        private long prunedThrough;
+        private final Map<Long, Long> changeSeqs = new HashMap<>();
+        private final Map<Long, Long> tombstones = new HashMap<>();
 
         @Override
         public List<Machine> findAll() {
+            findAllCalls++;
             return List.copyOf(storage);
         }
 
+        @Override
+        public Stream<Machine> streamAll(int fetchSize) {
+            return List.copyOf(storage).stream();
+        }
+
+        @Override
+        public List<Machine> findPage(String afterNomReseau, Long afterId, int limit) {
+            List<MachineSnapshot> rows = storage.stream().map(MachineSnapshot::of).toList();
+            return InventorySnapshot.of(0, rows).pageAfter(afterNomReseau, afterId, limit).stream()
+                    .map(MachineSnapshot::toMachine)
+                    .toList();
+        }
+
+        @Override
+        public MachineChanges findModifiedSince(long since) {
+            List<Machine> modified = storage.stream().filter(m -> changeSeqs.get(m.getId()) > since).toList();
+            List<Long> deleted = tombstones.entrySet().stream()
+                    .filter(tombstone -> tombstone.getValue() > since)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return new MachineChanges(modified, deleted, changeSeq, since >= prunedThrough);
+        }
+
+        @Override
+        public long latestChange() {
+            return changeSeq;
+        }
+
+        @Override
+        public int pruneTombstones(String clientId, long syncPoint) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long dataVersion() {
+            return dataVersion;
+        }
+
+        @Override
+        public long count() {
+            return storage.size();
+        }
+
+        @Override
+        public List<Machine> search(SearchCriteria criteria) {
+            return storage.stream()
+                    .filter(m -> criteria.site() == null || criteria.site().equals(m.getSite()))
+                    .filter(m -> criteria.lieu() == null || criteria.lieu().equals(m.getLieu()))
+                    .filter(m -> criteria.garantie() == null || criteria.garantie() == m.isGarantie())
+                    .filter(m -> criteria.text() == null
+                            || new SearchQuery.Text(criteria.text()).test(MachineSnapshot.of(m)))
+                    .limit(criteria.limit())
+                    .toList();
+        }
+
+        @Override
+        public List<Machine> searchFullText(String query, int limit) {
+            return search(SearchCriteria.ofText(query, limit));
+        }
+
         @Override
         public Optional<Machine> findById(long id) {
             return storage.stream().filter(m -> m.getId() != null && m.getId() == id).findFirst();
@@ -98,23 +623,32 @@ class MachineServiceTest {
 
         @Override
         public Machine save(Machine machine) {
+            if (storage.stream().anyMatch(m -> sameNomReseau(m.getNomReseau(), machine.getNomReseau()))) {
+                throw new IllegalArgumentException("NomReseau existe deja");
+            }
             machine.setId(seq++);
             storage.add(machine);
+            changeSeqs.put(machine.getId(), ++changeSeq);
             return machine;
         }
 
         @Override
         public Machine update(Machine machine) {
+            changeSeqs.put(machine.getId(), ++changeSeq);
             return machine;
         }
 
         @Override
         public void delete(long id) {
-            storage.removeIf(m -> m.getId() != null && m.getId() == id);
+            if (storage.removeIf(m -> m.getId() != null && m.getId() == id)) {
+                changeSeqs.remove(id);
+                tombstones.put(id, ++changeSeq);
+            }
         }
 
         @Override
         public boolean existsNomReseau(String nomReseau, Long excludeId) {
+            existsLookups++;
             return storage.stream().anyMatch(m -> {
                 if (m.getNomReseau() == null) {
                     return false;
@@ -122,8 +656,45 @@ class MachineServiceTest {
                 if (excludeId != null && m.getId() != null && m.getId().equals(excludeId)) {
                     return false;
                 }
-                return m.getNomReseau().equalsIgnoreCase(nomReseau);
+                return sameNomReseau(m.getNomReseau(), nomReseau);
             });
         }
+
+        @Override
+        public BatchResult saveAll(List<Machine> machines) {
+            machines.forEach(this::save);
+            return new BatchResult(machines, List.of());
+        }
+
+        @Override
+        public BatchResult updateAll(List<Machine> machines) {
+            machines.forEach(this::update);
+            return new BatchResult(machines, List.of());
+        }
+
+        @Override
+        public int deleteAll(Collection<Long> ids) {
+            int before = storage.size();
+            ids.forEach(this::delete);
+            return before - storage.size();
+        }
+
+        @Override
+        public Map<String, Long> findIdsByNomReseau(Collection<String> nomReseaux) {
+            nomReseauLookups++;
+            Map<String, Long> ids = new HashMap<>();
+            for (Machine machine : storage) {
+                for (String nomReseau : nomReseaux) {
+                    if (sameNomReseau(machine.getNomReseau(), nomReseau)) {
+                        ids.put(TextFolding.foldNoCase(machine.getNomReseau()), machine.getId());
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private static boolean sameNomReseau(String left, String right) {
+            return TextFolding.foldNoCase(left).equals(TextFolding.foldNoCase(right));
+        }
     }
 }